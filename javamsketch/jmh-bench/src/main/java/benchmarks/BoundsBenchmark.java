@@ -0,0 +1,72 @@
+package benchmarks;
+
+import msolver.BoundSolver;
+import msolver.MathUtil;
+import msolver.SimpleBoundSolver;
+import msolver.data.ShuttleData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moment bounds on the shuttle dataset: the Lindsay and Racz bound sizes
+ * from BoundSolver and the SimpleBoundSolver rank errors, with the
+ * solver construction amortized over queriesPerSolver queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundsBenchmark {
+    @Param("11")
+    public int k;
+    @Param({"1", "10", "100"})
+    public int queriesPerSolver;
+    @Param("45")
+    public double x;
+
+    private double[] powerSums;
+    private double[] moments;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        powerSums = Arrays.copyOf(ShuttleData.powerSums, k);
+        moments = MathUtil.powerSumsToMoments(powerSums);
+    }
+
+    @Benchmark
+    public double lindsay() {
+        BoundSolver boundSolver = new BoundSolver(powerSums, ShuttleData.min, ShuttleData.max);
+        double total = 0;
+        for (int i = 0; i < queriesPerSolver; i++) {
+            total += boundSolver.boundSizeLindsay(x);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double racz() {
+        BoundSolver boundSolver = new BoundSolver(powerSums, ShuttleData.min, ShuttleData.max);
+        double total = 0;
+        for (int i = 0; i < queriesPerSolver; i++) {
+            total += boundSolver.boundSizeRacz(x);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double simpleBounds() {
+        SimpleBoundSolver boundSolver = new SimpleBoundSolver(k);
+        double[] xs = {x};
+        double[] ps = {.5};
+        double total = 0;
+        for (int i = 0; i < queriesPerSolver; i++) {
+            double[] boundSizes = boundSolver.solveBounds(moments, xs);
+            total += boundSolver.getMaxErrors(moments, xs, ps, boundSizes)[0];
+        }
+        return total;
+    }
+}
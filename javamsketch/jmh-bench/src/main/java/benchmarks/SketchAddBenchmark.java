@@ -0,0 +1,65 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sketches.QuantileSketch;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion cost of each sketch, one value at a time and in bulk. Adding
+ * one value at a time to a sketch that already holds data exercises the
+ * incremental paths, e.g. the histogram binning into its existing buckets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SketchAddBenchmark {
+    @Param({
+            "cmoment:11", "moment:11", "hmoment:11", "tdigest:5", "yahoo:32", "spark_gk:50",
+            "sampling:1000", "reservoir_sampling:1000", "histogram:100",
+            "approx_histogram:100", "random:40", "gk_adaptive:50"
+    })
+    public String sketch;
+    @Param("gauss")
+    public String dataset;
+    @Param("100000")
+    public int n;
+
+    private double[] data;
+    private QuantileSketch elementSketch;
+    private int nextIdx;
+
+    @Setup(Level.Trial)
+    public void setupData() throws IOException {
+        data = Sketches.getData(dataset, n);
+    }
+
+    // start over every iteration so the sketch does not grow without bound
+    @Setup(Level.Iteration)
+    public void setupSketch() throws IOException {
+        elementSketch = Sketches.create(sketch);
+        nextIdx = 0;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public QuantileSketch addElement() {
+        elementSketch.add(data, nextIdx, 1);
+        nextIdx++;
+        if (nextIdx == data.length) {
+            nextIdx = 0;
+        }
+        return elementSketch;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public QuantileSketch addBulk() throws IOException {
+        QuantileSketch s = Sketches.create(sketch);
+        s.add(data);
+        return s;
+    }
+}
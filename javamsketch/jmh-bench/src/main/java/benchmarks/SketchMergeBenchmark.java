@@ -0,0 +1,67 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sketches.QuantileSketch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merge cost of each sketch over pre-built cells, two at a time and all
+ * at once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SketchMergeBenchmark {
+    @Param({
+            "cmoment:11", "moment:11", "hmoment:11", "tdigest:5", "yahoo:32", "spark_gk:50",
+            "sampling:1000", "reservoir_sampling:1000", "histogram:100",
+            "approx_histogram:100", "random:40", "gk_adaptive:50"
+    })
+    public String sketch;
+    @Param("gauss")
+    public String dataset;
+    @Param("1000")
+    public int numCells;
+    @Param("200")
+    public int cellSize;
+
+    private List<QuantileSketch> cells;
+    private int nextIdx;
+
+    @Setup(Level.Trial)
+    public void setupCells() throws IOException {
+        double[] data = Sketches.getData(dataset, numCells * cellSize);
+        cells = new ArrayList<>(numCells);
+        for (int i = 0; i < numCells; i++) {
+            QuantileSketch cell = Sketches.create(sketch);
+            cell.add(data, i * cellSize, cellSize);
+            cells.add(cell);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public QuantileSketch mergePair() throws IOException {
+        QuantileSketch merged = Sketches.create(sketch);
+        merged.merge(cells, nextIdx, nextIdx + 2);
+        nextIdx += 2;
+        if (nextIdx + 2 > numCells) {
+            nextIdx = 0;
+        }
+        return merged;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public QuantileSketch mergeAll() throws IOException {
+        QuantileSketch merged = Sketches.create(sketch);
+        merged.merge(cells);
+        return merged;
+    }
+}
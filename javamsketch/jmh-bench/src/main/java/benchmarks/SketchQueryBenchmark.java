@@ -0,0 +1,60 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sketches.QuantileSketch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of estimating quantiles and CDF values from a populated sketch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SketchQueryBenchmark {
+    @Param({
+            "cmoment:11", "moment:11", "hmoment:11", "tdigest:5", "yahoo:32", "spark_gk:50",
+            "sampling:1000", "reservoir_sampling:1000", "histogram:100",
+            "approx_histogram:100", "random:40", "gk_adaptive:50"
+    })
+    public String sketch;
+    @Param("gauss")
+    public String dataset;
+    @Param("100000")
+    public int n;
+    @Param("21")
+    public int numQuantiles;
+
+    private QuantileSketch populated;
+    private List<Double> ps;
+    private double[] xs;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        double[] data = Sketches.getData(dataset, n);
+        populated = Sketches.create(sketch);
+        populated.add(data);
+
+        ps = new ArrayList<>(numQuantiles);
+        for (int i = 0; i < numQuantiles; i++) {
+            ps.add((i + 1.0) / (numQuantiles + 1.0));
+        }
+        xs = populated.getQuantiles(ps);
+    }
+
+    @Benchmark
+    public double[] quantiles() throws Exception {
+        return populated.getQuantiles(ps);
+    }
+
+    @Benchmark
+    public double[] cdf() throws Exception {
+        return populated.getCDF(xs);
+    }
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+import io.SyntheticDataSource;
+import sketches.QuantileSketch;
+import sketches.SketchLoader;
+
+import java.io.IOException;
+
+/**
+ * Builds the sketches named by benchmark parameters of the form
+ * "sketchName:sizeParam".
+ */
+class Sketches {
+    static QuantileSketch create(String spec) throws IOException {
+        String[] parts = spec.split(":");
+        QuantileSketch sketch = SketchLoader.load(parts[0]);
+        sketch.setCalcError(false);
+        sketch.setSizeParam(Double.parseDouble(parts[1]));
+        sketch.initialize();
+        return sketch;
+    }
+
+    static double[] getData(String dataset, int n) throws IOException {
+        SyntheticDataSource source = SyntheticDataSource.fromName(dataset, n, 0);
+        if (source == null) {
+            throw new IOException("Unknown dataset: "+dataset);
+        }
+        return source.get();
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import msolver.ChebyshevMomentSolver2;
+import msolver.data.*;
+import msolver.struct.MomentStruct;
+import msolver.thresholds.ThresholdCascade;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maximum entropy solves and threshold cascades on the stored moments of
+ * the msolver.data datasets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    private static final int NUM_THRESHOLDS = 16;
+
+    @Param({"exponential", "gaussian", "hep", "milan", "occupancy", "retail_quantity"})
+    public String dataset;
+    @Param({"7", "11"})
+    public int k;
+    @Param("1e-9")
+    public double tolerance;
+    @Param("0.01")
+    public double phi;
+
+    private MomentStruct ms;
+    private double[] cutoffs;
+
+    private static MomentData getData(String dataset) {
+        switch (dataset) {
+            case "exponential":
+                return new ExponentialData();
+            case "gaussian":
+                return new GaussianData();
+            case "hep":
+                return new HepData();
+            case "milan":
+                return new MilanData();
+            case "occupancy":
+                return new OccupancyData();
+            case "retail_quantity":
+                return new RetailQuantityData();
+            default:
+                throw new IllegalArgumentException("Unknown dataset: "+dataset);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MomentData data = getData(dataset);
+        ms = new MomentStruct();
+        ms.min = data.getMin();
+        ms.max = data.getMax();
+        ms.logMin = data.getLogMin();
+        ms.logMax = data.getLogMax();
+        ms.powerSums = data.getPowerSums(k);
+        ms.logSums = data.getLogSums(k);
+
+        cutoffs = new double[NUM_THRESHOLDS];
+        for (int i = 0; i < NUM_THRESHOLDS; i++) {
+            cutoffs[i] = ms.min + (ms.max - ms.min) * (i + 1.0) / (NUM_THRESHOLDS + 1.0);
+        }
+    }
+
+    @Benchmark
+    public double[] solve() {
+        ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                ms.min, ms.max, ms.powerSums,
+                ms.logMin, ms.logMax, ms.logSums
+        );
+        solver.solve(tolerance);
+        return solver.getLambdas();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_THRESHOLDS)
+    public int thresholdCascade() {
+        ThresholdCascade cascade = new ThresholdCascade(ms);
+        cascade.setTolerance(tolerance);
+        int numAbove = 0;
+        for (double x : cutoffs) {
+            if (cascade.threshold(x, phi)) {
+                numAbove++;
+            }
+        }
+        return numAbove;
+    }
+}
@@ -0,0 +1,2 @@
+#!/usr/bin/env bash
+java -jar jmh-bench/target/benchmarks.jar $@
@@ -21,6 +21,7 @@ public class ChebyshevMomentSolver2 {
     private double aCenter, aScale, bCenter, bScale;
 
     private double[] lambdas;
+    private ChebyshevPolynomial approxPDF;
     private ChebyshevPolynomial approxCDF;
     private boolean isConverged;
 
@@ -57,14 +58,13 @@ public class ChebyshevMomentSolver2 {
 //        );
 //        double powerDelta = MathUtil.deltaFromUniformMoments(posPowerMoments);
 //        double logDelta = MathUtil.deltaFromUniformMoments(posLogMoments);
-        double[] powerChebyMoments = MathUtil.powerSumsToChebyMoments(
-                min, max, powerSums
-        );
-        double[] logChebyMoments = MathUtil.powerSumsToChebyMoments(
-                logMin, logMax, logPowerSums
-        );
-        double[] powerMoments = MathUtil.powerSumsToZerodMoments(powerSums, min, max);
-        double[] logMoments = MathUtil.powerSumsToZerodMoments(logPowerSums, logMin, logMax);
+        // the chebyshev and zeroed moments share the same rescaled power sums
+        double[] powerScaled = MathUtil.scaledPowerSums(powerSums, min, max);
+        double[] logScaled = MathUtil.scaledPowerSums(logPowerSums, logMin, logMax);
+        double[] powerChebyMoments = MathUtil.scaledToChebyMoments(powerScaled, powerSums[0]);
+        double[] logChebyMoments = MathUtil.scaledToChebyMoments(logScaled, logPowerSums[0]);
+        double[] powerMoments = MathUtil.scaledToZerodMoments(powerScaled);
+        double[] logMoments = MathUtil.scaledToZerodMoments(logScaled);
 
         // compare whether log moments or standard moments are closer to uniform distribution
         double powerDelta = MathUtil.deltaFromUniformZerodMoments(powerMoments);
@@ -140,6 +140,23 @@ public class ChebyshevMomentSolver2 {
         return solve(l_initial, tol);
     }
 
+    /**
+     * Starts from the lambdas interpolated from a precomputed table. Newton
+     * only takes steps if the interpolated point does not already satisfy tol.
+     */
+    public int solve(SolutionTable table, double tol) {
+        double[] l_initial = null;
+        if (table != null) {
+            l_initial = table.interpolate(
+                    useStandardBasis, getK1(), getK2(), d_mus
+            );
+        }
+        if (l_initial == null) {
+            l_initial = new double[d_mus.length];
+        }
+        return solve(l_initial, tol);
+    }
+
     public int solve(double[] l_initial, double tol) {
         MaxEntPotential2 potential = new MaxEntPotential2(
                 useStandardBasis,
@@ -173,7 +190,8 @@ public class ChebyshevMomentSolver2 {
             System.out.println(String.format("linscales: "+ aCenter +","+aScale+","+bCenter+","+bScale));
         }
 
-        approxCDF = ChebyshevPolynomial.fit(potential.getFunc(), tol).integralPoly();
+        approxPDF = ChebyshevPolynomial.fit(potential.getFunc(), tol);
+        approxCDF = approxPDF.integralPoly();
         return optimizer.getStepCount();
     }
 
@@ -226,6 +244,67 @@ public class ChebyshevMomentSolver2 {
         return approxCDF.value(y);
     }
 
+    /**
+     * Evaluates the estimated CDF at n evenly spaced points from lo to hi,
+     * matching estimateCDF at each point. Points outside of the data range
+     * are clamped to it.
+     */
+    public double[] evaluateCDFGrid(double lo, double hi, int n) {
+        double[] xs = grid(lo, hi, n);
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            double y = toBasis(xs[i]);
+            ys[i] = Math.max(-1.0, Math.min(1.0, y));
+        }
+        double[] cdf = new double[n];
+        approxCDF.values(ys, cdf);
+        return cdf;
+    }
+
+    /**
+     * Evaluates the estimated density with respect to x at n evenly spaced
+     * points from lo to hi. The density is zero outside of the data range.
+     */
+    public double[] evaluatePDFGrid(double lo, double hi, int n) {
+        double[] xs = grid(lo, hi, n);
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            ys[i] = toBasis(xs[i]);
+        }
+        double[] pdf = new double[n];
+        approxPDF.values(ys, pdf);
+        for (int i = 0; i < n; i++) {
+            double y = ys[i];
+            if (!(y >= -1.0 && y <= 1.0)) {
+                pdf[i] = 0.0;
+            } else if (useStandardBasis) {
+                pdf[i] /= aScale;
+            } else {
+                pdf[i] /= aScale * xs[i];
+            }
+        }
+        return pdf;
+    }
+
+    private static double[] grid(double lo, double hi, int n) {
+        double[] xs = new double[n];
+        double step = n > 1 ? (hi - lo) / (n - 1) : 0.0;
+        for (int i = 0; i < n; i++) {
+            xs[i] = lo + i * step;
+        }
+        return xs;
+    }
+
+    private double toBasis(double x) {
+        if (useStandardBasis) {
+            return (x - aCenter) / aScale;
+        } else if (x > 0) {
+            return (Math.log(x) - aCenter) / aScale;
+        } else {
+            return Double.NEGATIVE_INFINITY;
+        }
+    }
+
     public double[] getLambdas() {
         return lambdas;
     }
@@ -1,8 +1,30 @@
 package msolver;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class MathUtil {
+    // Shared tables for the common small k. Chebyshev coefficients overflow
+    // int from degree 27 on, where the largest is 2,724,986,880.
+    private static final int MAX_CACHED_K = 26;
+    private static final long[][] BINOMIALS = getBinomials(MAX_CACHED_K);
+    private static final int[][] CHEBY_COEFFICIENTS = getChebyCoefficients(MAX_CACHED_K);
+
+    /**
+     * Rows of the returned table do not depend on m, so the shared table can
+     * be used for any m up to MAX_CACHED_K. Must not be modified.
+     */
+    static long[][] binomialTable(int m) {
+        return m <= MAX_CACHED_K ? BINOMIALS : getBinomials(m);
+    }
+
+    /**
+     * Shared chebyshev coefficients, must not be modified.
+     */
+    static int[][] chebyCoefficientTable(int k) {
+        return k <= MAX_CACHED_K ? CHEBY_COEFFICIENTS : getChebyCoefficients(k);
+    }
+
     public static long[][] getBinomials(int m) {
         long[][] binoms = new long[m+1][m+1];
         for (int i = 0; i<=m; i++) {
@@ -14,6 +36,11 @@ public class MathUtil {
         return binoms;
     }
 
+    /**
+     * @return coefficients of the chebyshev polynomials up to degree k in
+     * the standard basis, exact only for k up to MAX_CACHED_K since larger
+     * ones overflow int
+     */
     public static int[][] getChebyCoefficients(int k) {
         int[][] chebyCoeffs = new int[k+1][k+1];
         chebyCoeffs[0][0] = 1;
@@ -60,7 +87,7 @@ public class MathUtil {
             nxcPowers[i] = nxcPowers[i-1] * (-xc);
             rNegPowers[i] = rNegPowers[i-1] / r;
         }
-        long[][] mBinoms = MathUtil.getBinomials(k);
+        long[][] mBinoms = binomialTable(k);
         for (int m = 0; m <= k; m++) {
             double sum = 0.0;
             for (int j = 0; j<=m; j++) {
@@ -99,14 +126,31 @@ public class MathUtil {
             double[] powerSums,
             double min,
             double max
+    ) {
+        return scaledToZerodMoments(scaledPowerSums(powerSums, min, max));
+    }
+
+    /**
+     * @return power sums of the values rescaled from [min, max] to [-1, 1]
+     */
+    public static double[] scaledPowerSums(
+            double[] powerSums,
+            double min,
+            double max
     ) {
         double r = (max - min) / 2;
         double xc = (max + min) / 2;
-        double[] scaledPowerSums = MathUtil.shiftPowerSum(
+        return MathUtil.shiftPowerSum(
                 powerSums,r,xc
         );
+    }
+
+    /**
+     * @param scaledPowerSums output of scaledPowerSums, modified in place
+     */
+    public static double[] scaledToZerodMoments(double[] scaledPowerSums) {
         double count = scaledPowerSums[0];
-        for (int i = 0; i < powerSums.length; i++) {
+        for (int i = 0; i < scaledPowerSums.length; i++) {
             scaledPowerSums[i] /= count;
         }
         return scaledPowerSums;
@@ -118,16 +162,21 @@ public class MathUtil {
             double max,
             double[] powerSums
     ) {
-        int k = powerSums.length - 1;
-        double r = (max - min) / 2;
-        double xc = (max + min) / 2;
         // First rescale the variables so that they lie in [-1,1]
-        double[] scaledPowerSums = MathUtil.shiftPowerSum(
-                powerSums,r,xc
-        );
+        double[] scaledPowerSums = scaledPowerSums(powerSums, min, max);
+        return scaledToChebyMoments(scaledPowerSums, powerSums[0]);
+    }
 
-        double count = powerSums[0];
-        int[][] cCoeffs = MathUtil.getChebyCoefficients(k);
+    /**
+     * @param scaledPowerSums output of scaledPowerSums
+     * @param count number of values
+     */
+    public static double[] scaledToChebyMoments(
+            double[] scaledPowerSums,
+            double count
+    ) {
+        int k = scaledPowerSums.length - 1;
+        int[][] cCoeffs = chebyCoefficientTable(k);
         // Then convert from power sums to chebyshev moments
         double[] scaledChebyMoments = new double[k+1];
         for (int i = 0; i <=k; i++) {
@@ -141,6 +190,54 @@ public class MathUtil {
         return scaledChebyMoments;
     }
 
+    /**
+     * Converts the power sums for many cells at once, without allocating
+     * per cell. Gives the same results as powerSumsToChebyMoments.
+     * @param powerSums k power sums for each cell, stored cell after cell
+     * @param chebyMoments output, same layout as powerSums
+     */
+    public static void powerSumsToChebyMoments(
+            double[] mins,
+            double[] maxs,
+            double[] powerSums,
+            int k,
+            double[] chebyMoments
+    ) {
+        int numCells = mins.length;
+        int deg = k - 1;
+        long[][] mBinoms = binomialTable(deg);
+        int[][] cCoeffs = chebyCoefficientTable(deg);
+        double[] nxcPowers = new double[k];
+        double[] rNegPowers = new double[k];
+        double[] scaledPowerSums = new double[k];
+        nxcPowers[0] = 1;
+        rNegPowers[0] = 1;
+        for (int c = 0; c < numCells; c++) {
+            int offset = c * k;
+            double r = (maxs[c] - mins[c]) / 2;
+            double xc = (maxs[c] + mins[c]) / 2;
+            for (int i = 1; i <= deg; i++) {
+                nxcPowers[i] = nxcPowers[i-1] * (-xc);
+                rNegPowers[i] = rNegPowers[i-1] / r;
+            }
+            for (int m = 0; m <= deg; m++) {
+                double sum = 0.0;
+                for (int j = 0; j<=m; j++) {
+                    sum += mBinoms[m][j]*nxcPowers[m-j]*powerSums[offset + j];
+                }
+                scaledPowerSums[m] = rNegPowers[m] * sum;
+            }
+            double count = powerSums[offset];
+            for (int i = 0; i <= deg; i++) {
+                double sum = 0.0;
+                for (int j = 0; j <= i; j++) {
+                    sum += cCoeffs[i][j]*scaledPowerSums[j];
+                }
+                chebyMoments[offset + i] = sum / count;
+            }
+        }
+    }
+
     public static double[] listToArray(List<Double> xList) {
         int n = xList.size();
         double[] xs = new double[n];
@@ -150,6 +247,14 @@ public class MathUtil {
         return xs;
     }
 
+    public static List<Double> arrayToList(double[] xs) {
+        List<Double> xList = new ArrayList<>(xs.length);
+        for (double x : xs) {
+            xList.add(x);
+        }
+        return xList;
+    }
+
     public static double deltaFromUniformZerodMoments(double[] zMoments) {
         if (zMoments.length <= 1) {
             return Double.POSITIVE_INFINITY;
@@ -0,0 +1,212 @@
+package msolver;
+
+import msolver.struct.MomentStruct;
+import msolver.thresholds.PreparedBounds;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Answers a quantile query in increasingly accurate stages so that callers
+ * can show something before the full solve finishes:
+ * guaranteed intervals from the moment bounds, then a cheap estimate from a
+ * low order solve or the MnatSolver, and finally the full maximum entropy
+ * estimate with error bounds on the rank of each quantile.
+ */
+public class ProgressiveQuantiles {
+    public enum Stage {
+        BOUNDS, ESTIMATE, FINAL
+    }
+
+    public static class Result {
+        public Stage stage;
+        public double[] quantiles;
+        // Guaranteed to contain the true quantiles
+        public double[] lowerBounds;
+        public double[] upperBounds;
+        // Max error in the rank of each quantile, only set at the final stage
+        public double[] errors;
+    }
+
+    public interface Listener {
+        void onResult(Result result);
+    }
+
+    private MomentStruct ms;
+    private double tolerance = 1e-9;
+    private double boundTolerance = 1e-3;
+    private int lowOrderK = 3;
+    private boolean calcError = true;
+
+    public ProgressiveQuantiles(MomentStruct ms) {
+        this.ms = ms;
+    }
+
+    public CompletableFuture<Result> query(double[] ps, Listener listener) {
+        return query(ps, listener, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the stages on the executor, passing each result to the listener
+     * as it becomes available. Cancelling the returned future stops the
+     * query before the next stage starts.
+     * @return future for the final result
+     */
+    public CompletableFuture<Result> query(double[] ps, Listener listener, Executor executor) {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                run(ps, listener, future);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private void run(double[] ps, Listener listener, CompletableFuture<Result> future) {
+        if (future.isDone()) {
+            return;
+        }
+        Result bounds = getBounds(ps);
+        listener.onResult(bounds);
+
+        if (future.isDone()) {
+            return;
+        }
+        Result estimate = getEstimate(ps, bounds);
+        listener.onResult(estimate);
+
+        if (future.isDone()) {
+            return;
+        }
+        Result finalResult = getFinal(ps, bounds);
+        if (!future.isDone()) {
+            listener.onResult(finalResult);
+            future.complete(finalResult);
+        }
+    }
+
+    public Result getBounds(double[] ps) {
+        int m = ps.length;
+        Result r = new Result();
+        r.stage = Stage.BOUNDS;
+        r.lowerBounds = new double[m];
+        r.upperBounds = new double[m];
+        r.quantiles = new double[m];
+        PreparedBounds pb = new PreparedBounds(ms);
+        for (int i = 0; i < m; i++) {
+            double[] interval;
+            if (ms.min == ms.max) {
+                interval = new double[]{ms.min, ms.max};
+            } else {
+                interval = pb.boundQuantile(ps[i], boundTolerance);
+            }
+            r.lowerBounds[i] = interval[0];
+            r.upperBounds[i] = interval[1];
+            r.quantiles[i] = (interval[0] + interval[1]) / 2;
+        }
+        return r;
+    }
+
+    public Result getEstimate(double[] ps, Result bounds) {
+        int m = ps.length;
+        Result r = new Result();
+        r.stage = Stage.ESTIMATE;
+        r.lowerBounds = bounds.lowerBounds;
+        r.upperBounds = bounds.upperBounds;
+
+        double[] quantiles = null;
+        if (ms.min < ms.max) {
+            try {
+                ChebyshevMomentSolver2 solver = getSolver(lowOrderK);
+                solver.solve(tolerance);
+                if (solver.isConverged()) {
+                    quantiles = solver.estimateQuantiles(ps);
+                }
+            } catch (Exception e) {}
+            if (quantiles == null) {
+                quantiles = MnatSolver.estimateQuantiles(
+                        ms.min, ms.max,
+                        Arrays.copyOf(ms.powerSums, Math.min(lowOrderK, ms.powerSums.length)),
+                        MathUtil.arrayToList(ps)
+                );
+            }
+        } else {
+            quantiles = bounds.quantiles.clone();
+        }
+        for (int i = 0; i < m; i++) {
+            quantiles[i] = Math.min(r.upperBounds[i], Math.max(r.lowerBounds[i], quantiles[i]));
+        }
+        r.quantiles = quantiles;
+        return r;
+    }
+
+    public Result getFinal(double[] ps, Result bounds) {
+        int m = ps.length;
+        Result r = new Result();
+        r.stage = Stage.FINAL;
+        r.lowerBounds = bounds.lowerBounds;
+        r.upperBounds = bounds.upperBounds;
+        r.errors = new double[m];
+        if (ms.min == ms.max) {
+            r.quantiles = bounds.quantiles.clone();
+            return r;
+        }
+
+        ChebyshevMomentSolver2 solver = getSolver(Integer.MAX_VALUE);
+        solver.solve(tolerance);
+        r.quantiles = solver.estimateQuantiles(ps);
+        if (calcError) {
+            double[] sums;
+            double[] xs = new double[m];
+            if (solver.isUseStandardBasis()) {
+                sums = ms.powerSums;
+                System.arraycopy(r.quantiles, 0, xs, 0, m);
+            } else {
+                sums = ms.logSums;
+                for (int i = 0; i < m; i++) {
+                    xs[i] = Math.log(r.quantiles[i]);
+                }
+            }
+            double[] moments = MathUtil.powerSumsToMoments(sums);
+            SimpleBoundSolver boundSolver = new SimpleBoundSolver(solver.getNumNormalPowers());
+            try {
+                double[] boundSizes = boundSolver.solveBounds(moments, xs);
+                r.errors = boundSolver.getMaxErrors(moments, xs, ps, boundSizes);
+            } catch (Exception e) {
+                Arrays.fill(r.errors, 1.0);
+            }
+        }
+        return r;
+    }
+
+    private ChebyshevMomentSolver2 getSolver(int k) {
+        double[] powerSums = Arrays.copyOf(ms.powerSums, Math.min(k, ms.powerSums.length));
+        double[] logSums;
+        if (ms.min > 0) {
+            logSums = Arrays.copyOf(ms.logSums, Math.min(k, ms.logSums.length));
+        } else {
+            logSums = new double[1];
+        }
+        return ChebyshevMomentSolver2.fromPowerSums(
+                ms.min, ms.max, powerSums,
+                ms.logMin, ms.logMax, logSums
+        );
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+    public void setBoundTolerance(double boundTolerance) {
+        this.boundTolerance = boundTolerance;
+    }
+    public void setLowOrderK(int lowOrderK) {
+        this.lowOrderK = lowOrderK;
+    }
+    public void setCalcError(boolean calcError) {
+        this.calcError = calcError;
+    }
+}
@@ -10,10 +10,25 @@ public class SimpleBoundSolver {
     private double[][] momentArray;
     private double[][] smallArray;
 
+    // Use the hankel solve / Aberth / Vandermonde path for positions and weights,
+    // falling back to the determinant / eigenvalue path when it fails.
+    private boolean useFastPath = true;
+    private int maxRootIter = 100;
+    // Scratch space for the fast path
+    private double[] polyCur;
+    private double[] roots, rootSteps;
+
     public SimpleBoundSolver(int numMoments) {
         this.n = (numMoments - 1) / 2;
         this.momentArray = new double[n+1][n+1];
         this.smallArray = new double[n][n];
+        this.polyCur = new double[n+1];
+        this.roots = new double[n];
+        this.rootSteps = new double[n];
+    }
+
+    public void setUseFastPath(boolean useFastPath) {
+        this.useFastPath = useFastPath;
     }
 
     /**
@@ -22,14 +37,29 @@ public class SimpleBoundSolver {
      * http://www.personal.psu.edu/faculty/f/k/fkv/2000-06-moment-as.pdf
      */
     public double[] solveBounds(double[] moments, double[] xs) {
+        return solveBounds(factorMoments(moments), xs);
+    }
+
+    /**
+     * Factors the moment matrix so that bounds at many points can share it.
+     */
+    public DecompositionSolver factorMoments(double[] moments) {
         for (int i = 0; i <= n; i++) {
             System.arraycopy(moments, i, momentArray[i], 0, n+1);
         }
         RealMatrix momentMatrix = new Array2DRowRealMatrix(momentArray, false);
 
-        double[] vectorData = new double[n+1];
 //        LUDecomposition momentMatrixDecomp = new LUDecomposition(momentMatrix);
         CholeskyDecomposition momentMatrixDecomp = new CholeskyDecomposition(momentMatrix);
+        return momentMatrixDecomp.getSolver();
+    }
+
+    /**
+     * @param momentSolver factored moment matrix from factorMoments
+     * @param xs locations to calculate bound size at
+     */
+    public double[] solveBounds(DecompositionSolver momentSolver, double[] xs) {
+        double[] vectorData = new double[n+1];
 
         int numPoints = xs.length;
         double[] boundSizes = new double[numPoints];
@@ -37,7 +67,7 @@ public class SimpleBoundSolver {
             double x = xs[i];
             MathUtil.calcPowers(x, vectorData);
             ArrayRealVector vec = new ArrayRealVector(vectorData, false);
-            double boundSize = 1.0 / vec.dotProduct(momentMatrixDecomp.getSolver().solve(vec));
+            double boundSize = 1.0 / vec.dotProduct(momentSolver.solve(vec));
             boundSizes[i] = boundSize;
         }
 
@@ -203,6 +233,12 @@ public class SimpleBoundSolver {
     }
 
     private double[] solvePositions(double[] moments) {
+        if (useFastPath && n > 0) {
+            double[] positions = fastSolvePositions(moments);
+            if (positions != null) {
+                return positions;
+            }
+        }
         double[] coefs = orthogonalPolynomialCoefficients(moments, n);
         int deg = coefs.length - 1;
         boolean hasNonzero = false;
@@ -232,6 +268,12 @@ public class SimpleBoundSolver {
     }
 
     private double[] solveWeights(double[] moments, double[] positions) {
+        if (useFastPath) {
+            double[] weights = vandermondeWeights(moments, positions);
+            if (weights != null) {
+                return weights;
+            }
+        }
         for (int c = 0; c < positions.length; c++) {
             double curPow = 1.0;
             smallArray[0][c] = 1.0;
@@ -286,4 +328,158 @@ public class SimpleBoundSolver {
         return coefs;
     }
 
+    /**
+     * Solves the Hankel system for the monic degree n orthogonal polynomial
+     * of the moments and finds its roots with Aberth's method.
+     * @return null if the moments are too close to degenerate
+     */
+    private double[] fastSolvePositions(double[] moments) {
+        // sum_j a_j m_{r+j} = -m_{r+n} for r < n, with a_n = 1
+        double[] a = polyCur;
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(moments, r, smallArray[r], 0, n);
+            a[r] = -moments[r + n];
+        }
+        a[n] = 1.0;
+
+        // gaussian elimination with partial pivoting
+        for (int c = 0; c < n; c++) {
+            int pivot = c;
+            for (int r = c + 1; r < n; r++) {
+                if (Math.abs(smallArray[r][c]) > Math.abs(smallArray[pivot][c])) {
+                    pivot = r;
+                }
+            }
+            // the diagonal of a positive definite hankel matrix bounds its pivots
+            if (!(Math.abs(smallArray[pivot][c]) > 1e-12 * Math.abs(moments[2*c]))) {
+                return null;
+            }
+            if (pivot != c) {
+                double[] tmpRow = smallArray[c];
+                smallArray[c] = smallArray[pivot];
+                smallArray[pivot] = tmpRow;
+                double tmp = a[c];
+                a[c] = a[pivot];
+                a[pivot] = tmp;
+            }
+            for (int r = c + 1; r < n; r++) {
+                double factor = smallArray[r][c] / smallArray[c][c];
+                for (int j = c + 1; j < n; j++) {
+                    smallArray[r][j] -= factor * smallArray[c][j];
+                }
+                a[r] -= factor * a[c];
+            }
+        }
+        for (int c = n - 1; c >= 0; c--) {
+            double sum = a[c];
+            for (int j = c + 1; j < n; j++) {
+                sum -= smallArray[c][j] * a[j];
+            }
+            a[c] = sum / smallArray[c][c];
+        }
+
+        if (!aberthRoots(a)) {
+            return null;
+        }
+        return Arrays.copyOf(roots, n);
+    }
+
+    /**
+     * Aberth-Ehrlich iteration on the monic polynomial coefs, starting from
+     * chebyshev nodes spread over a bound on the root magnitudes. The roots
+     * of an orthogonal polynomial are real and simple so real arithmetic is
+     * enough.
+     * @return whether the iteration converged, results are stored in roots
+     */
+    private boolean aberthRoots(double[] coefs) {
+        // Fujiwara bound on the magnitude of the roots
+        double radius = 0.0;
+        for (int i = 0; i < n; i++) {
+            double c = Math.abs(coefs[i]);
+            if (i == 0) {
+                c /= 2;
+            }
+            radius = Math.max(radius, Math.pow(c, 1.0 / (n - i)));
+        }
+        radius = 2 * radius;
+        if (radius == 0.0) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            roots[i] = radius * Math.cos(Math.PI * (2 * i + 1) / (2 * n));
+        }
+
+        for (int iter = 0; iter < maxRootIter; iter++) {
+            double maxStep = 0.0;
+            double maxRoot = 0.0;
+            for (int i = 0; i < n; i++) {
+                double z = roots[i];
+                // Horner for p(z) and p'(z)
+                double p = coefs[n];
+                double dp = 0.0;
+                for (int j = n - 1; j >= 0; j--) {
+                    dp = dp * z + p;
+                    p = p * z + coefs[j];
+                }
+                double step;
+                if (p == 0.0) {
+                    step = 0.0;
+                } else {
+                    double ratio = p / dp;
+                    double repulsion = 0.0;
+                    for (int j = 0; j < n; j++) {
+                        if (j != i) {
+                            repulsion += 1.0 / (z - roots[j]);
+                        }
+                    }
+                    step = ratio / (1.0 - ratio * repulsion);
+                }
+                rootSteps[i] = step;
+                maxStep = Math.max(maxStep, Math.abs(step));
+                maxRoot = Math.max(maxRoot, Math.abs(z));
+            }
+            if (!(maxStep < Double.POSITIVE_INFINITY)) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                roots[i] -= rootSteps[i];
+            }
+            if (maxStep <= 1e-14 * Math.max(1.0, maxRoot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bjorck-Pereyra solve of sum_c w_c positions_c^r = moments_r.
+     * @return null if two positions coincide
+     */
+    private static double[] vandermondeWeights(double[] moments, double[] positions) {
+        int m = positions.length;
+        double[] w = Arrays.copyOf(moments, m);
+        for (int k = 0; k < m - 1; k++) {
+            for (int i = m - 1; i > k; i--) {
+                w[i] -= positions[k] * w[i-1];
+            }
+        }
+        for (int k = m - 2; k >= 0; k--) {
+            for (int i = k + 1; i < m; i++) {
+                double diff = positions[i] - positions[i-k-1];
+                if (diff == 0.0) {
+                    return null;
+                }
+                w[i] /= diff;
+            }
+            for (int i = k; i < m - 1; i++) {
+                w[i] -= w[i+1];
+            }
+        }
+        for (double x : w) {
+            if (Double.isNaN(x) || Double.isInfinite(x)) {
+                return null;
+            }
+        }
+        return w;
+    }
 }
@@ -0,0 +1,66 @@
+package msolver;
+
+import msolver.struct.MomentStruct;
+import msolver.struct.MomentStructLog;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Appends the inputs of solves that take longer than a threshold to a
+ * MomentStructLog file, so slow queries can be reproduced offline.
+ * Safe to share between threads.
+ */
+public class SlowSolveCapture implements Closeable {
+    private long thresholdNanos;
+    private PrintWriter out;
+    private long numCaptured;
+
+    public SlowSolveCapture(String fileName, long thresholdNanos) throws IOException {
+        this.thresholdNanos = thresholdNanos;
+        this.out = new PrintWriter(new BufferedWriter(new FileWriter(fileName, true)));
+    }
+
+    /**
+     * Builds and runs a solver for ms, recording it if the solve is slow.
+     */
+    public ChebyshevMomentSolver2 solve(MomentStruct ms, double tolerance) {
+        ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                ms.min, ms.max, ms.powerSums,
+                ms.logMin, ms.logMax, ms.logSums
+        );
+        long startTime = System.nanoTime();
+        solver.solve(tolerance);
+        record(ms, tolerance, System.nanoTime() - startTime);
+        return solver;
+    }
+
+    /**
+     * @return whether the solve was slow enough to be written out
+     */
+    public boolean record(MomentStruct ms, double tolerance, long solveNanos) {
+        if (solveNanos < thresholdNanos) {
+            return false;
+        }
+        String line = MomentStructLog.format(new MomentStructLog.Entry(ms, tolerance, solveNanos));
+        synchronized (this) {
+            out.println(line);
+            // flushed right away so captures survive a crash or kill
+            out.flush();
+            numCaptured++;
+        }
+        return true;
+    }
+
+    public synchronized long getNumCaptured() {
+        return numCaptured;
+    }
+
+    @Override
+    public synchronized void close() {
+        out.close();
+    }
+}
@@ -0,0 +1,196 @@
+package msolver;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precomputed table mapping normalized chebyshev moments to maxent lambdas.
+ * For low order sketches the map is smooth so interpolating between nearby
+ * solved entries gives a starting point that is usually already within
+ * tolerance, in which case the solver takes zero newton steps.
+ * Entries are grouped by solve configuration (basis, ka, kb) since the lambdas
+ * are only comparable within a configuration.
+ */
+public class SolutionTable {
+    private int numNeighbors = 4;
+    private Map<String, Block> blocks;
+
+    private static class Block {
+        int dim;
+        int size;
+        double[] moments;
+        double[] lambdas;
+
+        Block(int dim) {
+            this.dim = dim;
+            this.size = 0;
+            this.moments = new double[16 * dim];
+            this.lambdas = new double[16 * dim];
+        }
+
+        void add(double[] d_mus, double[] lambd) {
+            if ((size + 1) * dim > moments.length) {
+                moments = Arrays.copyOf(moments, 2 * moments.length);
+                lambdas = Arrays.copyOf(lambdas, 2 * lambdas.length);
+            }
+            System.arraycopy(d_mus, 0, moments, size * dim, dim);
+            System.arraycopy(lambd, 0, lambdas, size * dim, dim);
+            size++;
+        }
+    }
+
+    public SolutionTable() {
+        this.blocks = new HashMap<>();
+    }
+
+    private static String getKey(boolean useStandardBasis, int ka, int kb) {
+        return (useStandardBasis ? "s" : "l") + ka + "_" + kb;
+    }
+
+    /**
+     * Records the solution of a converged solver. Unconverged solves are skipped.
+     * @return whether the solution was added
+     */
+    public boolean add(ChebyshevMomentSolver2 solver) {
+        if (!solver.isConverged()) {
+            return false;
+        }
+        add(
+                solver.isUseStandardBasis(), solver.getK1(), solver.getK2(),
+                solver.getChebyshevMoments(), solver.getLambdas()
+        );
+        return true;
+    }
+
+    public void add(
+            boolean useStandardBasis, int ka, int kb,
+            double[] d_mus, double[] lambd
+    ) {
+        String key = getKey(useStandardBasis, ka, kb);
+        Block b = blocks.get(key);
+        if (b == null) {
+            b = new Block(d_mus.length);
+            blocks.put(key, b);
+        }
+        b.add(d_mus, lambd);
+    }
+
+    /**
+     * @return inverse-distance weighted average of the lambdas of the nearest
+     * entries, or null if there are no entries for this configuration.
+     */
+    public double[] interpolate(
+            boolean useStandardBasis, int ka, int kb,
+            double[] d_mus
+    ) {
+        Block b = blocks.get(getKey(useStandardBasis, ka, kb));
+        if (b == null || b.size == 0) {
+            return null;
+        }
+        int dim = b.dim;
+        int nn = Math.min(numNeighbors, b.size);
+        int[] nIdxs = new int[nn];
+        double[] nDists = new double[nn];
+        Arrays.fill(nDists, Double.MAX_VALUE);
+
+        double[] moments = b.moments;
+        for (int i = 0; i < b.size; i++) {
+            int offset = i * dim;
+            double dist = 0.0;
+            for (int j = 0; j < dim; j++) {
+                double delta = moments[offset + j] - d_mus[j];
+                dist += delta * delta;
+            }
+            // insertion into the sorted neighbor list
+            if (dist < nDists[nn - 1]) {
+                int pos = nn - 1;
+                while (pos > 0 && nDists[pos - 1] > dist) {
+                    nDists[pos] = nDists[pos - 1];
+                    nIdxs[pos] = nIdxs[pos - 1];
+                    pos--;
+                }
+                nDists[pos] = dist;
+                nIdxs[pos] = i;
+            }
+        }
+
+        double[] result = new double[dim];
+        if (nDists[0] == 0.0) {
+            System.arraycopy(b.lambdas, nIdxs[0] * dim, result, 0, dim);
+            return result;
+        }
+        double totalWeight = 0.0;
+        for (int i = 0; i < nn; i++) {
+            double w = 1.0 / nDists[i];
+            int offset = nIdxs[i] * dim;
+            for (int j = 0; j < dim; j++) {
+                result[j] += w * b.lambdas[offset + j];
+            }
+            totalWeight += w;
+        }
+        for (int j = 0; j < dim; j++) {
+            result[j] /= totalWeight;
+        }
+        return result;
+    }
+
+    public int size() {
+        int total = 0;
+        for (Block b : blocks.values()) {
+            total += b.size;
+        }
+        return total;
+    }
+
+    public void setNumNeighbors(int numNeighbors) {
+        this.numNeighbors = numNeighbors;
+    }
+
+    public void save(String fileName) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName))
+        );
+        out.writeInt(blocks.size());
+        for (Map.Entry<String, Block> e : blocks.entrySet()) {
+            Block b = e.getValue();
+            out.writeUTF(e.getKey());
+            out.writeInt(b.dim);
+            out.writeInt(b.size);
+            for (int i = 0; i < b.size * b.dim; i++) {
+                out.writeDouble(b.moments[i]);
+            }
+            for (int i = 0; i < b.size * b.dim; i++) {
+                out.writeDouble(b.lambdas[i]);
+            }
+        }
+        out.close();
+    }
+
+    public static SolutionTable load(String fileName) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName))
+        );
+        SolutionTable table = new SolutionTable();
+        int numBlocks = in.readInt();
+        for (int bi = 0; bi < numBlocks; bi++) {
+            String key = in.readUTF();
+            int dim = in.readInt();
+            int size = in.readInt();
+            Block b = new Block(dim);
+            b.size = size;
+            b.moments = new double[Math.max(size, 1) * dim];
+            b.lambdas = new double[Math.max(size, 1) * dim];
+            for (int i = 0; i < size * dim; i++) {
+                b.moments[i] = in.readDouble();
+            }
+            for (int i = 0; i < size * dim; i++) {
+                b.lambdas[i] = in.readDouble();
+            }
+            table.blocks.put(key, b);
+        }
+        in.close();
+        return table;
+    }
+}
@@ -17,6 +17,9 @@ import java.util.Arrays;
  * compute all of its chebyshev moments without re-evaluating the function.
  */
 public class ChebyshevPolynomial implements UnivariateFunction {
+    // Products with a factor at least this long are computed with the DCT
+    public static final int DCT_MULTIPLY_THRESHOLD = 256;
+
     private double[] coeffs;
     private int numFitEvals;
 
@@ -157,13 +160,61 @@ public class ChebyshevPolynomial implements UnivariateFunction {
         return new ChebyshevPolynomial(newCoeffs);
     }
 
+    public ChebyshevPolynomial multiply(ChebyshevPolynomial p2) {
+        if (Math.max(coeffs.length, p2.coeffs.length) >= DCT_MULTIPLY_THRESHOLD) {
+            return multiplyDCT(p2);
+        } else {
+            return multiplyDirect(p2);
+        }
+    }
+
+    /**
+     * Evaluates both factors at the chebyshev extreme points with a DCT,
+     * multiplies pointwise and transforms back. O(d log d) instead of O(d^2).
+     * @param p2 factor
+     * @return new product
+     */
+    public ChebyshevPolynomial multiplyDCT(ChebyshevPolynomial p2) {
+        int deg = coeffs.length + p2.coeffs.length - 2;
+        int N = 1;
+        while (N < deg) {
+            N *= 2;
+        }
+        FastCosineTransformer t = new FastCosineTransformer(
+                DctNormalization.STANDARD_DCT_I
+        );
+        double[] v1 = t.transform(scaledForDCT(coeffs, N), TransformType.FORWARD);
+        double[] v2 = t.transform(scaledForDCT(p2.coeffs, N), TransformType.FORWARD);
+        for (int i = 0; i <= N; i++) {
+            v1[i] *= v2[i];
+        }
+        double[] cs = t.transform(v1, TransformType.FORWARD);
+        for (int i = 0; i <= N; i++) {
+            cs[i] *= 2.0/N;
+        }
+        cs[0] /= 2;
+        cs[N] /= 2;
+        return new ChebyshevPolynomial(Arrays.copyOf(cs, deg+1));
+    }
+
+    /**
+     * DCT-I input whose transform is the polynomial at cos(pi*j/N)
+     */
+    private static double[] scaledForDCT(double[] c, int N) {
+        double[] x = new double[N+1];
+        System.arraycopy(c, 0, x, 0, Math.min(c.length, N+1));
+        x[0] *= 2;
+        x[N] *= 2;
+        return x;
+    }
+
     /**
      * This function appears to be unreliable for large polynomials
      * See https://arxiv.org/pdf/1009.4597.pdf
      * @param p2 factor
      * @return new product
      */
-    public ChebyshevPolynomial multiply(ChebyshevPolynomial p2) {
+    public ChebyshevPolynomial multiplyDirect(ChebyshevPolynomial p2) {
         double[] c = new double[coeffs.length + p2.coeffs.length - 1];
         int d = Math.max(coeffs.length, p2.coeffs.length)-1;
         double[] a = Arrays.copyOf(coeffs, d+1);
@@ -260,6 +311,33 @@ public class ChebyshevPolynomial implements UnivariateFunction {
         return coeffs[0]+x*bk0-bk1;
     }
 
+    /**
+     * Clenshaw recurrence run over all of the points at once, so the inner
+     * loop over points is simple enough for the JIT to vectorize.
+     * @param xs points in [-1, 1]
+     * @param out values of the polynomial at xs
+     */
+    public void values(double[] xs, double[] out) {
+        int n = xs.length;
+        double[] bk0 = new double[n];
+        double[] bk1 = new double[n];
+        double[] twoX = new double[n];
+        for (int j = 0; j < n; j++) {
+            twoX[j] = 2 * xs[j];
+        }
+        for (int i = coeffs.length-1; i > 0; i--) {
+            double c = coeffs[i];
+            for (int j = 0; j < n; j++) {
+                double b = c + twoX[j]*bk0[j] - bk1[j];
+                bk1[j] = bk0[j];
+                bk0[j] = b;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            out[j] = coeffs[0] + xs[j]*bk0[j] - bk1[j];
+        }
+    }
+
     @Override
     public String toString() {
         return "CPoly: "+ Arrays.toString(coeffs);
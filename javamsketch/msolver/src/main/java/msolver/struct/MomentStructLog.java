@@ -0,0 +1,94 @@
+package msolver.struct;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text log of solver inputs so that solves can be replayed offline. Each
+ * line holds one entry as space separated values:
+ * solveNanos tolerance min max logMin logMax ka powerSums... kb logSums...
+ * Doubles are written with Double.toString so they read back exactly.
+ */
+public class MomentStructLog {
+    public static class Entry {
+        public MomentStruct ms;
+        public double tolerance;
+        // Time the original solve took, 0 if unknown
+        public long solveNanos;
+
+        public Entry(MomentStruct ms, double tolerance, long solveNanos) {
+            this.ms = ms;
+            this.tolerance = tolerance;
+            this.solveNanos = solveNanos;
+        }
+    }
+
+    public static String format(Entry e) {
+        MomentStruct ms = e.ms;
+        StringBuilder sb = new StringBuilder();
+        sb.append(e.solveNanos).append(' ').append(e.tolerance);
+        sb.append(' ').append(ms.min).append(' ').append(ms.max);
+        sb.append(' ').append(ms.logMin).append(' ').append(ms.logMax);
+        appendSums(sb, ms.powerSums);
+        appendSums(sb, ms.logSums);
+        return sb.toString();
+    }
+
+    private static void appendSums(StringBuilder sb, double[] sums) {
+        int k = sums == null ? 0 : sums.length;
+        sb.append(' ').append(k);
+        for (int i = 0; i < k; i++) {
+            sb.append(' ').append(sums[i]);
+        }
+    }
+
+    public static Entry parse(String line) {
+        String[] vals = line.trim().split(" ");
+        int i = 0;
+        long solveNanos = Long.parseLong(vals[i++]);
+        double tolerance = Double.parseDouble(vals[i++]);
+        MomentStruct ms = new MomentStruct();
+        ms.min = Double.parseDouble(vals[i++]);
+        ms.max = Double.parseDouble(vals[i++]);
+        ms.logMin = Double.parseDouble(vals[i++]);
+        ms.logMax = Double.parseDouble(vals[i++]);
+        int ka = Integer.parseInt(vals[i++]);
+        ms.powerSums = new double[ka];
+        for (int j = 0; j < ka; j++) {
+            ms.powerSums[j] = Double.parseDouble(vals[i++]);
+        }
+        int kb = Integer.parseInt(vals[i++]);
+        ms.logSums = new double[kb];
+        for (int j = 0; j < kb; j++) {
+            ms.logSums[j] = Double.parseDouble(vals[i++]);
+        }
+        return new Entry(ms, tolerance, solveNanos);
+    }
+
+    public static void write(String fileName, List<Entry> entries) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(fileName)))) {
+            for (Entry e : entries) {
+                out.println(format(e));
+            }
+        }
+    }
+
+    public static List<Entry> read(String fileName) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    entries.add(parse(line));
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,201 @@
+package msolver.thresholds;
+
+import msolver.ChebyshevMomentSolver2;
+import msolver.MathUtil;
+import msolver.SimpleBoundSolver;
+import msolver.struct.MomentStruct;
+import org.apache.commons.math3.linear.DecompositionSolver;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Evaluates the same threshold predicate over many cells, running each of
+ * the default {@link ThresholdCascade} stages (Cantelli, Markov, RTT) over
+ * all remaining cells before moving on to the next, more expensive, one.
+ * The bounds are computed straight from each cell's moments rather than
+ * through per-cell stage objects. Only cells left undecided by the moment
+ * bounds are solved, in parallel.
+ */
+public class BatchThreshold {
+    private static final int NUM_STAGES = 3;
+
+    private double tolerance = 1e-9;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    // RTT bound solvers by number of moments, only used on the calling thread
+    private SimpleBoundSolver[] boundSolvers = new SimpleBoundSolver[0];
+
+    private int numTrivial;
+    private int[] numPruned;
+    private int numSolved;
+
+    public BatchThreshold() {}
+
+    // For each cell, are there phi fraction above x, aka is CDF(x) < 1 - phi?
+    public boolean[] threshold(MomentStruct[] cells, double x, double phi) {
+        int n = cells.length;
+        boolean[] results = new boolean[n];
+        int[] remaining = new int[n];
+        int numRemaining = 0;
+
+        numTrivial = 0;
+        for (int i = 0; i < n; i++) {
+            int trivial = ThresholdCascade.trivialThreshold(cells[i], x);
+            if (trivial >= 0) {
+                results[i] = (trivial == 1);
+                numTrivial++;
+            } else {
+                remaining[numRemaining++] = i;
+            }
+        }
+
+        numPruned = new int[NUM_STAGES];
+        double[] cellBounds = new double[2];
+        double[] scratch = new double[2];
+        for (int stage = 0; stage < NUM_STAGES; stage++) {
+            int numLeft = 0;
+            for (int j = 0; j < numRemaining; j++) {
+                int i = remaining[j];
+                cellBounds[0] = 0.0;
+                cellBounds[1] = 1.0;
+                bound(stage, cells[i], x, cellBounds, scratch);
+                if (cellBounds[0] > phi) {
+                    results[i] = true;
+                } else if (cellBounds[1] < phi) {
+                    results[i] = false;
+                } else {
+                    remaining[numLeft++] = i;
+                }
+            }
+            numPruned[stage] = numRemaining - numLeft;
+            numRemaining = numLeft;
+        }
+
+        numSolved = numRemaining;
+        solveRemaining(cells, x, phi, results, remaining, numRemaining);
+        return results;
+    }
+
+    /**
+     * Tightens cellBounds on the fraction of values above x with one stage.
+     */
+    private void bound(int stage, MomentStruct ms, double x, double[] cellBounds, double[] scratch) {
+        switch (stage) {
+            case 0:
+                CantelliThreshold.bound(ms, x, cellBounds, scratch);
+                break;
+            case 1:
+                PreparedBounds.markovBound(ms, PreparedBounds.markovSums(ms), x, cellBounds);
+                break;
+            default:
+                double[] moments = MathUtil.powerSumsToMoments(ms.powerSums);
+                SimpleBoundSolver solver = getBoundSolver(moments.length);
+                PreparedBounds.rttBound(solver, factor(solver, moments), moments, x, cellBounds);
+                double[] logMoments = MathUtil.powerSumsToMoments(ms.logSums);
+                SimpleBoundSolver logSolver = getBoundSolver(logMoments.length);
+                PreparedBounds.rttBound(logSolver, factor(logSolver, logMoments), logMoments, Math.log(x), cellBounds);
+                break;
+        }
+    }
+
+    private SimpleBoundSolver getBoundSolver(int numMoments) {
+        if (numMoments >= boundSolvers.length) {
+            boundSolvers = Arrays.copyOf(boundSolvers, numMoments + 1);
+        }
+        if (boundSolvers[numMoments] == null) {
+            boundSolvers[numMoments] = new SimpleBoundSolver(numMoments);
+        }
+        return boundSolvers[numMoments];
+    }
+
+    /**
+     * @return factored moment matrix, or null if it could not be factored
+     */
+    private static DecompositionSolver factor(SimpleBoundSolver solver, double[] moments) {
+        try {
+            return solver.factorMoments(moments);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void solveRemaining(
+            MomentStruct[] cells, double x, double phi,
+            boolean[] results, int[] remaining, int numRemaining
+    ) {
+        int actualThreads = Math.max(1, Math.min(numThreads, numRemaining));
+        if (actualThreads == 1) {
+            for (int j = 0; j < numRemaining; j++) {
+                int i = remaining[j];
+                results[i] = solveThreshold(cells[i], x, phi);
+            }
+            return;
+        }
+
+        final CountDownLatch doneSignal = new CountDownLatch(actualThreads);
+        // first exception thrown by any of the solver threads
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int threadNum = 0; threadNum < actualThreads; threadNum++) {
+            final int startIndex = (numRemaining * threadNum) / actualThreads;
+            final int endIndex = (numRemaining * (threadNum + 1)) / actualThreads;
+            Runnable solveRunnable = () -> {
+                try {
+                    for (int j = startIndex; j < endIndex; j++) {
+                        int i = remaining[j];
+                        results[i] = solveThreshold(cells[i], x, phi);
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    doneSignal.countDown();
+                }
+            };
+            Thread solveThread = new Thread(solveRunnable);
+            solveThread.start();
+        }
+        try {
+            doneSignal.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while solving thresholds", ex);
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException("Failed to solve thresholds", failure.get());
+        }
+    }
+
+    private boolean solveThreshold(MomentStruct ms, double x, double phi) {
+        ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                ms.min, ms.max,
+                ms.powerSums,
+                ms.logMin, ms.logMax,
+                ms.logSums
+        );
+        solver.solve(tolerance);
+        double cdfValue = solver.estimateCDF(x);
+        return cdfValue < 1 - phi;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    public int getNumTrivial() {
+        return numTrivial;
+    }
+    /**
+     * @return number of cells decided by each of the Cantelli, Markov and
+     * RTT stages
+     */
+    public int[] getNumPruned() {
+        return numPruned;
+    }
+    public int getNumSolved() {
+        return numSolved;
+    }
+}
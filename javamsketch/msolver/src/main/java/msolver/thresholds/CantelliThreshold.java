@@ -0,0 +1,65 @@
+package msolver.thresholds;
+
+import msolver.struct.MomentStruct;
+
+/**
+ * One-sided chebyshev (cantelli) bounds using only the mean and variance.
+ * Cheaper than the markov bounds since no shifted power sums are needed.
+ */
+public class CantelliThreshold implements MomentThreshold {
+    private MomentStruct ms;
+
+    public CantelliThreshold(MomentStruct ms) {
+        this.ms = ms;
+    }
+
+    @Override
+    public double[] bound(double cutoff) {
+        double[] outlierRateBounds = new double[]{0.0, 1.0};
+        bound(ms, cutoff, outlierRateBounds, new double[2]);
+        return outlierRateBounds;
+    }
+
+    /**
+     * Tightens outlierRateBounds in place with the cantelli bounds at cutoff.
+     * @param scratch length 2 array overwritten with intermediate bounds
+     */
+    static void bound(MomentStruct ms, double cutoff, double[] outlierRateBounds, double[] scratch) {
+        int ka = ms.powerSums.length;
+        int kb = ms.logSums.length;
+        double n = ms.powerSums[0];
+        if (ka > 2) {
+            cantelli(ms.powerSums, cutoff, scratch);
+            outlierRateBounds[0] = Math.max(outlierRateBounds[0], scratch[0]);
+            outlierRateBounds[1] = Math.min(outlierRateBounds[1], scratch[1]);
+        }
+
+        double nl = ms.logSums[0];
+        if (kb > 2 && nl != 0 && cutoff > 0) {
+            double fracIncluded = nl / n;
+            cantelli(ms.logSums, Math.log(cutoff), scratch);
+            double outlierRateLowerBound = fracIncluded * scratch[0];
+            double outlierRateUpperBound = (1.0 - fracIncluded) + fracIncluded * scratch[1];
+            outlierRateBounds[0] = Math.max(outlierRateBounds[0], outlierRateLowerBound);
+            outlierRateBounds[1] = Math.min(outlierRateBounds[1], outlierRateUpperBound);
+        }
+    }
+
+    private static void cantelli(double[] sums, double cutoff, double[] b) {
+        double n = sums[0];
+        double mean = sums[1] / n;
+        double var = Math.max(0.0, sums[2] / n - mean * mean);
+        double delta = cutoff - mean;
+        double tail = var / (var + delta * delta);
+        if (delta > 0) {
+            b[0] = 0.0;
+            b[1] = tail;
+        } else if (delta < 0) {
+            b[0] = 1.0 - tail;
+            b[1] = 1.0;
+        } else {
+            b[0] = 0.0;
+            b[1] = 1.0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package msolver.thresholds;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Per-stage query counts, prune counts and time spent for a cascade of
+ * moment thresholds. A single instance can be shared by the cascades for
+ * many cells so that the stage ordering adapts to the observed workload.
+ * Cascades only time their stages and record them here when recording or
+ * adaptive ordering is turned on, so by default queries pay for neither
+ * the timer nor the lock.
+ */
+public class CascadeStats {
+    private String[] names;
+    private long[] numQueries;
+    private long[] numPruned;
+    private long[] nanos;
+
+    private boolean recording = false;
+    private boolean adaptive = false;
+    private int minQueries = 20;
+    private volatile int[] order;
+
+    public CascadeStats(String[] names) {
+        int n = names.length;
+        this.names = names;
+        this.numQueries = new long[n];
+        this.numPruned = new long[n];
+        this.nanos = new long[n];
+        this.order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+    }
+
+    public synchronized void record(int stage, boolean pruned, long elapsedNanos) {
+        numQueries[stage]++;
+        if (pruned) {
+            numPruned[stage]++;
+        }
+        nanos[stage] += elapsedNanos;
+    }
+
+    /**
+     * @return order in which stages should be tried. When adaptive, stages
+     * are sorted by prune rate per nanosecond, with stages that have too few
+     * observations kept at the front so they keep getting measured.
+     */
+    public int[] getOrder() {
+        if (!adaptive) {
+            return order;
+        }
+        synchronized (this) {
+            return getAdaptiveOrder();
+        }
+    }
+
+    private int[] getAdaptiveOrder() {
+        int n = names.length;
+        Integer[] idxs = new Integer[n];
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            idxs[i] = i;
+            if (numQueries[i] < minQueries) {
+                scores[i] = Double.POSITIVE_INFINITY;
+            } else {
+                double pruneRate = (double) numPruned[i] / numQueries[i];
+                double avgNanos = Math.max(1.0, (double) nanos[i] / numQueries[i]);
+                scores[i] = pruneRate / avgNanos;
+            }
+        }
+        Arrays.sort(idxs, Comparator.comparingDouble((Integer i) -> -scores[i]));
+        int[] adaptiveOrder = new int[n];
+        for (int i = 0; i < n; i++) {
+            adaptiveOrder[i] = idxs[i];
+        }
+        return adaptiveOrder;
+    }
+
+    public void setOrder(int[] order) {
+        this.order = order;
+    }
+    /**
+     * @return whether cascades should time and record each stage, which
+     * adaptive ordering needs
+     */
+    public boolean isRecording() {
+        return recording || adaptive;
+    }
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+    public void setMinQueries(int minQueries) {
+        this.minQueries = minQueries;
+    }
+
+    public int getNumStages() {
+        return names.length;
+    }
+    public String[] getNames() {
+        return names;
+    }
+    public synchronized long getNumQueries(int stage) {
+        return numQueries[stage];
+    }
+    public synchronized long getNumPruned(int stage) {
+        return numPruned[stage];
+    }
+    public synchronized long getNanos(int stage) {
+        return nanos[stage];
+    }
+    public synchronized double getPruneRate(int stage) {
+        return numQueries[stage] == 0 ? 0.0 : (double) numPruned[stage] / numQueries[stage];
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            sb.append(String.format(
+                    "%s: queries=%d pruned=%d rate=%.3f avgNanos=%.0f\n",
+                    names[i], numQueries[i], numPruned[i], getPruneRate(i),
+                    numQueries[i] == 0 ? 0.0 : (double) nanos[i] / numQueries[i]
+            ));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package msolver.thresholds;
+
+import msolver.ChebyshevMomentSolver2;
+import msolver.struct.MomentStruct;
+
+import java.util.Arrays;
+
+/**
+ * Approximate bounds from a maximum entropy solve using only the first few
+ * moments, widened by a fixed margin. These are not guaranteed to contain
+ * the true value.
+ */
+public class LowOrderThreshold implements MomentThreshold {
+    private MomentStruct ms;
+    private int k = 3;
+    private double margin;
+    private double tolerance = 1e-6;
+    private ChebyshevMomentSolver2 solver;
+
+    public LowOrderThreshold(MomentStruct ms, double margin) {
+        this.ms = ms;
+        this.margin = margin;
+    }
+
+    public LowOrderThreshold(MomentStruct ms, int k, double margin) {
+        this.ms = ms;
+        this.k = k;
+        this.margin = margin;
+    }
+
+    @Override
+    public double[] bound(double cutoff) {
+        if (solver == null) {
+            solver = ChebyshevMomentSolver2.fromPowerSums(
+                    ms.min, ms.max,
+                    Arrays.copyOf(ms.powerSums, Math.min(k, ms.powerSums.length)),
+                    ms.logMin, ms.logMax,
+                    Arrays.copyOf(ms.logSums, Math.min(k, ms.logSums.length))
+            );
+            solver.solve(tolerance);
+        }
+        if (!solver.isConverged()) {
+            return new double[]{0.0, 1.0};
+        }
+        double gt = 1.0 - solver.estimateCDF(cutoff);
+        return new double[]{
+                Math.max(0.0, gt - margin),
+                Math.min(1.0, gt + margin)
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package msolver.thresholds;
+
+import msolver.MathUtil;
+import msolver.MnatSolver;
+import msolver.struct.MomentStruct;
+
+/**
+ * Approximate bounds from the MnatSolver discrete CDF estimate widened by a
+ * fixed margin. These are not guaranteed to contain the true value.
+ */
+public class MnatThreshold implements MomentThreshold {
+    private MomentStruct ms;
+    private double margin;
+    private double[] cdf;
+
+    public MnatThreshold(MomentStruct ms, double margin) {
+        this.ms = ms;
+        this.margin = margin;
+    }
+
+    @Override
+    public double[] bound(double cutoff) {
+        int ka = ms.powerSums.length;
+        if (ka < 2 || ms.max == ms.min) {
+            return new double[]{0.0, 1.0};
+        }
+        if (cdf == null) {
+            double[] moments = MathUtil.powerSumsToPosMoments(ms.powerSums, ms.min, ms.max);
+            cdf = MnatSolver.estimateCDF(moments);
+        }
+        int a = cdf.length - 1;
+        // spread the mass at each point i/a evenly over its neighborhood
+        double t = (cutoff - ms.min) / (ms.max - ms.min) * a + 0.5;
+        double cdfValue;
+        if (t <= 0) {
+            cdfValue = 0.0;
+        } else if (t >= a + 1) {
+            cdfValue = cdf[a];
+        } else {
+            int idx = (int) t;
+            double prev = idx > 0 ? cdf[idx - 1] : 0.0;
+            double next = idx <= a ? cdf[idx] : cdf[a];
+            cdfValue = prev + (t - idx) * (next - prev);
+        }
+        double gt = 1.0 - cdfValue;
+        return new double[]{
+                Math.max(0.0, gt - margin),
+                Math.min(1.0, gt + margin)
+        };
+    }
+}
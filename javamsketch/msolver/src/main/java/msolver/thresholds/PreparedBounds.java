@@ -0,0 +1,234 @@
+package msolver.thresholds;
+
+import msolver.MathUtil;
+import msolver.SimpleBoundSolver;
+import msolver.struct.MomentStruct;
+import org.apache.commons.math3.linear.DecompositionSolver;
+
+/**
+ * Bounds on the fraction of values greater than a cutoff, with the work that
+ * does not depend on the cutoff done once per sketch. The shifted power sums
+ * for the markov bounds and the factored moment matrices for the RTT bounds
+ * are computed lazily on first use and reused for every later cutoff.
+ */
+public class PreparedBounds {
+    private MomentStruct ms;
+
+    // Markov state
+    private double[][] markovSums;
+
+    // RTT state
+    private boolean rttPrepared = false;
+    private double[] moments, logMoments;
+    private SimpleBoundSolver boundSolver, logBoundSolver;
+    private DecompositionSolver momentSolver, logMomentSolver;
+
+    public PreparedBounds(MomentStruct ms) {
+        this.ms = ms;
+    }
+
+    /**
+     * @return power sums of x - min, max - x, log(x) - logMin and
+     * logMax - log(x), with an entry left null where the markov bounds do
+     * not use it
+     */
+    static double[][] markovSums(MomentStruct ms) {
+        double[][] sums = new double[4][];
+        int ka = ms.powerSums.length;
+        int kb = ms.logSums.length;
+        if (ka > 1) {
+            sums[0] = MathUtil.shiftPowerSum(ms.powerSums, 1, ms.min);
+            sums[1] = MathUtil.shiftPowerSum(ms.powerSums, -1, ms.max);
+        }
+        if (kb > 1 && ms.logSums[0] != 0) {
+            sums[2] = MathUtil.shiftPowerSum(ms.logSums, 1, ms.logMin);
+            sums[3] = MathUtil.shiftPowerSum(ms.logSums, -1, ms.logMax);
+        }
+        return sums;
+    }
+
+    private void prepareRTT() {
+        int ka = ms.powerSums.length;
+        int kb = ms.logSums.length;
+
+        moments = MathUtil.powerSumsToMoments(ms.powerSums);
+        boundSolver = new SimpleBoundSolver(ka);
+        try {
+            momentSolver = boundSolver.factorMoments(moments);
+        } catch (Exception e) {
+            momentSolver = null;
+        }
+
+        logMoments = MathUtil.powerSumsToMoments(ms.logSums);
+        try {
+            logBoundSolver = new SimpleBoundSolver(kb);
+            logMomentSolver = logBoundSolver.factorMoments(logMoments);
+        } catch (Exception e) {
+            logMomentSolver = null;
+        }
+        rttPrepared = true;
+    }
+
+    public double[] markovBound(double cutoff) {
+        if (markovSums == null) {
+            markovSums = markovSums(ms);
+        }
+        double[] outlierRateBounds = new double[]{0.0, 1.0};
+        markovBound(ms, markovSums, cutoff, outlierRateBounds);
+        return outlierRateBounds;
+    }
+
+    /**
+     * Tightens outlierRateBounds in place with the markov bounds at cutoff.
+     * @param sums output of markovSums for ms
+     */
+    static void markovBound(MomentStruct ms, double[][] sums, double cutoff, double[] outlierRateBounds) {
+        double[] xMinusMinMoments = sums[0];
+        double[] maxMinusXMoments = sums[1];
+        double[] xMinusMinLogMoments = sums[2];
+        double[] maxMinusXLogMoments = sums[3];
+
+        int ka = ms.powerSums.length;
+        int kb = ms.logSums.length;
+        double n = ms.powerSums[0];
+        if (ka > 1) {
+            for (int i = 1; i < ka; i++) {
+                double outlierRateUpperBound = (xMinusMinMoments[i] / n) / Math.pow(cutoff - ms.min, i);
+                double outlierRateLowerBound = 1.0 - (maxMinusXMoments[i] / n) / Math.pow(ms.max - cutoff, i);
+                outlierRateBounds[0] = Math.max(outlierRateBounds[0], outlierRateLowerBound);
+                outlierRateBounds[1] = Math.min(outlierRateBounds[1], outlierRateUpperBound);
+            }
+        }
+
+        double nl = ms.logSums[0];
+        if (kb > 1 && nl != 0 && cutoff > 0) {
+            double logCutoff = Math.log(cutoff);
+            double fracIncluded = nl / n;
+            for (int i = 1; i < kb; i++) {
+                double outlierRateUpperBound = (
+                        (1.0 - fracIncluded) +
+                                fracIncluded * (xMinusMinLogMoments[i] / nl) / Math.pow(logCutoff - ms.logMin, i)
+                );
+                double outlierRateLowerBound = (
+                        1.0 -
+                                fracIncluded * (maxMinusXLogMoments[i] / nl) / Math.pow(ms.logMax - logCutoff, i)
+                );
+                outlierRateBounds[0] = Math.max(outlierRateBounds[0], outlierRateLowerBound);
+                outlierRateBounds[1] = Math.min(outlierRateBounds[1], outlierRateUpperBound);
+            }
+        }
+    }
+
+    public double[] rttBound(double x) {
+        if (!rttPrepared) {
+            prepareRTT();
+        }
+        double[] gttBounds = new double[]{0.0, 1.0};
+        // Standard basis
+        rttBound(boundSolver, momentSolver, moments, x, gttBounds);
+        // Log basis
+        rttBound(logBoundSolver, logMomentSolver, logMoments, Math.log(x), gttBounds);
+        return gttBounds;
+    }
+
+    /**
+     * Tightens gttBounds in place with the RTT bounds at x in one basis.
+     * @param momentSolver factored moment matrix, or null if factoring
+     *                     failed, in which case the bounds are left alone
+     */
+    static void rttBound(
+            SimpleBoundSolver boundSolver, DecompositionSolver momentSolver,
+            double[] moments, double x, double[] gttBounds
+    ) {
+        if (momentSolver == null) {
+            return;
+        }
+        try {
+            double[] boundSizes = boundSolver.solveBounds(momentSolver, new double[]{x});
+            double[] endpoints = boundSolver.getBoundEndpoints(moments, x, boundSizes[0]);
+            if (1.0 - endpoints[1] > gttBounds[0]) {
+                gttBounds[0] = 1.0 - endpoints[1];
+            }
+            if (1.0 - endpoints[0] < gttBounds[1]) {
+                gttBounds[1] = 1.0 - endpoints[0];
+            }
+        } catch (Exception e) {}
+    }
+
+    /**
+     * @return tightest bounds on the fraction of values greater than x
+     */
+    public double[] bound(double x) {
+        double[] bounds = markovBound(x);
+        double[] rttBounds = rttBound(x);
+        bounds[0] = Math.max(bounds[0], rttBounds[0]);
+        bounds[1] = Math.min(bounds[1], rttBounds[1]);
+        return bounds;
+    }
+
+    /**
+     * @return bounds on the fraction of values greater than each cutoff
+     */
+    public double[][] bound(double[] cutoffs) {
+        int n = cutoffs.length;
+        double[][] results = new double[n][];
+        for (int i = 0; i < n; i++) {
+            results[i] = bound(cutoffs[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Bisects on the CDF bounds to find an interval that must contain the
+     * p-quantile.
+     * @param relTol stop once the interval endpoints are known to within
+     *               this fraction of the data range
+     * @return lower and upper bounds on the p-quantile
+     */
+    public double[] boundQuantile(double p, double relTol) {
+        double tol = relTol * (ms.max - ms.min);
+        // smallest x where the upper bound on the CDF reaches p
+        double lo = ms.min;
+        double hi = ms.max;
+        if (1.0 - bound(lo)[0] < p) {
+            while (hi - lo > tol) {
+                double mid = (lo + hi) / 2;
+                if (1.0 - bound(mid)[0] >= p) {
+                    hi = mid;
+                } else {
+                    lo = mid;
+                }
+            }
+        } else {
+            hi = lo;
+        }
+        double qLower = lo;
+
+        // smallest x where the lower bound on the CDF reaches p
+        lo = qLower;
+        hi = ms.max;
+        while (hi - lo > tol) {
+            double mid = (lo + hi) / 2;
+            if (1.0 - bound(mid)[1] >= p) {
+                hi = mid;
+            } else {
+                lo = mid;
+            }
+        }
+        double qUpper = hi;
+        return new double[]{qLower, qUpper};
+    }
+
+    /**
+     * @return bounds on the CDF at each x
+     */
+    public double[][] boundCDF(double[] xs) {
+        int n = xs.length;
+        double[][] results = new double[n][];
+        for (int i = 0; i < n; i++) {
+            double[] gtBounds = bound(xs[i]);
+            results[i] = new double[]{1.0 - gtBounds[1], 1.0 - gtBounds[0]};
+        }
+        return results;
+    }
+}
@@ -3,41 +3,87 @@ package msolver.thresholds;
 import msolver.ChebyshevMomentSolver2;
 import msolver.struct.MomentStruct;
 
+/**
+ * Answers threshold queries by trying progressively more expensive stages
+ * before falling back to a full maximum entropy solve. The default stages
+ * are rigorous bounds so the answer always matches the solve; approximate
+ * stages such as {@link MnatThreshold} and {@link LowOrderThreshold} can be
+ * passed in explicitly when some error is acceptable.
+ */
 public class ThresholdCascade {
     private MomentStruct ms;
     private MomentThreshold[] cascade;
+    private CascadeStats stats;
     private ChebyshevMomentSolver2 solver;
+    private double tolerance = 1e-9;
 
     public ThresholdCascade(MomentStruct ms) {
+        this(ms, defaultStages(ms));
+    }
+
+    public ThresholdCascade(MomentStruct ms, MomentThreshold... stages) {
         this.ms = ms;
-        this.cascade = new MomentThreshold[2];
-        this.cascade[0] = new MarkovThreshold(ms);
-        this.cascade[1] = new RTTThreshold(ms);
+        this.cascade = stages;
+        this.stats = new CascadeStats(stageNames(stages));
     }
 
-    // Are there phi fraction above x, aka is CDF(x) < 1 - phi?
-    public boolean threshold(double x, double phi) {
-        int ka = ms.powerSums.length;
-        if (ka > 0) {
-            if (ms.min == ms.max) {
-                return x > ms.min;
-            }
-        } else {
-            if (ms.logMin == ms.logMax) {
-                return x > Math.exp(ms.logMin);
-            }
-        }
+    /**
+     * Cantelli, Markov and RTT bounds in increasing order of cost.
+     */
+    public static MomentThreshold[] defaultStages(MomentStruct ms) {
+        PreparedBounds bounds = new PreparedBounds(ms);
+        return new MomentThreshold[]{
+                new CantelliThreshold(ms),
+                new MarkovThreshold(bounds),
+                new RTTThreshold(bounds)
+        };
+    }
 
-        if (x < ms.min) {
-            return true;
+    /**
+     * Default stages followed by the approximate MnatSolver and low order
+     * maximum entropy stages.
+     * @param margin error allowed on the estimated fraction above the cutoff
+     */
+    public static MomentThreshold[] approximateStages(MomentStruct ms, double margin) {
+        PreparedBounds bounds = new PreparedBounds(ms);
+        return new MomentThreshold[]{
+                new CantelliThreshold(ms),
+                new MarkovThreshold(bounds),
+                new MnatThreshold(ms, margin),
+                new RTTThreshold(bounds),
+                new LowOrderThreshold(ms, margin)
+        };
+    }
+
+    public static String[] stageNames(MomentThreshold[] stages) {
+        String[] names = new String[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            names[i] = stages[i].getClass().getSimpleName();
         }
-        if (x > ms.max) {
-            return false;
+        return names;
+    }
+
+    // Are there phi fraction above x, aka is CDF(x) < 1 - phi?
+    public boolean threshold(double x, double phi) {
+        int trivial = trivialThreshold(ms, x);
+        if (trivial >= 0) {
+            return trivial == 1;
         }
 
-        for (int i = 0; i < cascade.length; i++) {
-            MomentThreshold mt = cascade[i];
-            double[] bounds = mt.bound(x);
+        boolean recording = stats.isRecording();
+        int[] order = stats.getOrder();
+        for (int i = 0; i < order.length; i++) {
+            int stage = order[i];
+            MomentThreshold mt = cascade[stage];
+            double[] bounds;
+            if (recording) {
+                long startTime = System.nanoTime();
+                bounds = mt.bound(x);
+                boolean pruned = bounds[0] > phi || bounds[1] < phi;
+                stats.record(stage, pruned, System.nanoTime() - startTime);
+            } else {
+                bounds = mt.bound(x);
+            }
             if (bounds[0] > phi) {
                 return true;
             }
@@ -52,7 +98,7 @@ public class ThresholdCascade {
                 ms.logMin, ms.logMax,
                 ms.logSums
         );
-        solver.solve(1e-9);
+        solver.solve(tolerance);
         double cdfValue = solver.estimateCDF(x);
         if (cdfValue < 1 - phi) {
             return true;
@@ -61,6 +107,46 @@ public class ThresholdCascade {
         }
     }
 
+    /**
+     * Answers thresholds that follow directly from the range of the data.
+     * @return 1 if true, 0 if false, -1 if the moments need to be examined
+     */
+    static int trivialThreshold(MomentStruct ms, double x) {
+        int ka = ms.powerSums.length;
+        if (ka > 0) {
+            if (ms.min == ms.max) {
+                return x > ms.min ? 1 : 0;
+            }
+        } else {
+            if (ms.logMin == ms.logMax) {
+                return x > Math.exp(ms.logMin) ? 1 : 0;
+            }
+        }
+
+        if (x < ms.min) {
+            return 1;
+        }
+        if (x > ms.max) {
+            return 0;
+        }
+        return -1;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Shares stats, and hence the stage ordering, with other cascades built
+     * from the same list of stage types.
+     */
+    public void setStats(CascadeStats stats) {
+        this.stats = stats;
+    }
+    public CascadeStats getStats() {
+        return stats;
+    }
+
     public ChebyshevMomentSolver2 getSolver() {
         return solver;
     }
@@ -0,0 +1,115 @@
+package msolver.thresholds;
+
+import msolver.ChebyshevMomentSolver2;
+import msolver.struct.MomentStruct;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the k cells with the largest estimated p-quantile. Every cell first
+ * gets a cheap interval on its quantile from the moment bounds. Cells are then
+ * solved in order of decreasing upper bound and the search stops once no
+ * remaining interval can beat the current k-th best estimate.
+ */
+public class TopKQuantile {
+    private double tolerance = 1e-9;
+    private double boundTolerance = 1e-3;
+
+    private int numSolves;
+    private int numSolvesAvoided;
+    private double[] topEstimates;
+    private double[][] quantileBounds;
+
+    public TopKQuantile() {}
+
+    /**
+     * @return indices of the top k cells, by decreasing estimated quantile
+     */
+    public int[] topK(MomentStruct[] cells, double p, int k) {
+        int n = cells.length;
+        k = Math.min(k, n);
+        quantileBounds = new double[n][];
+        for (int i = 0; i < n; i++) {
+            MomentStruct ms = cells[i];
+            if (ms.min == ms.max) {
+                quantileBounds[i] = new double[]{ms.min, ms.max};
+            } else {
+                PreparedBounds pb = new PreparedBounds(ms);
+                quantileBounds[i] = pb.boundQuantile(p, boundTolerance);
+            }
+        }
+
+        // No cell whose upper bound is below the k-th largest lower bound can
+        // make it into the top k, so candidates are visited by upper bound.
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> -quantileBounds[i][1]));
+
+        // min-heap of {estimate, index}
+        PriorityQueue<double[]> best = new PriorityQueue<>(
+                k + 1, Comparator.comparingDouble((double[] e) -> e[0])
+        );
+        numSolves = 0;
+        double[] ps = {p};
+        for (int j = 0; j < n; j++) {
+            int i = order[j];
+            double[] interval = quantileBounds[i];
+            if (best.size() == k && interval[1] < best.peek()[0]) {
+                break;
+            }
+            double estimate;
+            if (interval[0] == interval[1]) {
+                estimate = interval[0];
+            } else {
+                MomentStruct ms = cells[i];
+                ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                        ms.min, ms.max,
+                        ms.powerSums,
+                        ms.logMin, ms.logMax,
+                        ms.logSums
+                );
+                solver.solve(tolerance);
+                estimate = solver.estimateQuantiles(ps)[0];
+                numSolves++;
+            }
+            best.add(new double[]{estimate, i});
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        numSolvesAvoided = n - numSolves;
+
+        int[] topIndices = new int[best.size()];
+        topEstimates = new double[best.size()];
+        for (int j = topIndices.length - 1; j >= 0; j--) {
+            double[] e = best.poll();
+            topEstimates[j] = e[0];
+            topIndices[j] = (int) e[1];
+        }
+        return topIndices;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+    public void setBoundTolerance(double boundTolerance) {
+        this.boundTolerance = boundTolerance;
+    }
+
+    public double[] getTopEstimates() {
+        return topEstimates;
+    }
+    public double[][] getQuantileBounds() {
+        return quantileBounds;
+    }
+    public int getNumSolves() {
+        return numSolves;
+    }
+    public int getNumSolvesAvoided() {
+        return numSolvesAvoided;
+    }
+}
@@ -52,6 +52,38 @@ public class ChebyshevMomentSolver2Test {
         assertEquals(0.98, cdf, 0.01);
     }
 
+    @Test
+    public void testGrid() {
+        MomentData[] datasets = {new ExponentialData(), new MilanData()};
+        for (MomentData data : datasets) {
+            ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                    data.getMin(), data.getMax(), data.getPowerSums(9),
+                    data.getLogMin(), data.getLogMax(), data.getLogSums(9)
+            );
+            solver.solve(1e-9);
+            double lo = data.getMin();
+            double hi = data.getMax();
+            int n = 2001;
+            double[] cdf = solver.evaluateCDFGrid(lo, hi, n);
+            double[] pdf = solver.evaluatePDFGrid(lo, hi, n);
+            double step = (hi - lo) / (n - 1);
+            for (int i = 0; i < n; i += 50) {
+                assertEquals(solver.estimateCDF(lo + i * step), cdf[i], 1e-10);
+            }
+            // trapezoid integral of the density tracks the CDF away from the
+            // ends, where the log basis density can blow up
+            double integral = 0.0;
+            for (int i = n / 10; i < n - 1; i++) {
+                integral += (pdf[i] + pdf[i + 1]) / 2 * step;
+            }
+            assertEquals(cdf[n - 1] - cdf[n / 10], integral, 1e-3);
+
+            double[] outside = solver.evaluatePDFGrid(hi + 1, hi + 2, 3);
+            assertEquals(0.0, outside[1], 0.0);
+            assertEquals(cdf[n - 1], solver.evaluateCDFGrid(hi + 1, hi + 2, 3)[2], 1e-12);
+        }
+    }
+
     @Test
     public void testExpMix() {
         double[] range = {0.00016239676113615254, 11.080746252112679, -8.7254680741784778, 2.4052090303248499};
@@ -4,6 +4,9 @@ import msolver.chebyshev.ChebyshevPolynomial;
 import msolver.chebyshev.QuadraticCosFunction;
 import org.junit.Test;
 
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class ChebyshevPolynomialTest {
@@ -72,4 +75,41 @@ public class ChebyshevPolynomialTest {
                 1e-10
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMultiplyDCT() {
+        double[] c1 = {1.0, 2.0, 3.0, 4.0};
+        double[] c2 = {.5, .6, .7, .8, .9};
+        ChebyshevPolynomial cp1 = new ChebyshevPolynomial(c1);
+        ChebyshevPolynomial cp2 = new ChebyshevPolynomial(c2);
+        assertArrayEquals(
+                cp1.multiplyDirect(cp2).coeffs(),
+                cp1.multiplyDCT(cp2).coeffs(),
+                1e-12
+        );
+
+        Random r = new Random(0);
+        int[][] sizes = {{200, 300}, {512, 513}, {1000, 7}, {2049, 2049}};
+        for (int[] size : sizes) {
+            double[] a = new double[size[0]];
+            double[] b = new double[size[1]];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = r.nextGaussian() / (i + 1);
+            }
+            for (int i = 0; i < b.length; i++) {
+                b[i] = r.nextGaussian() / (i + 1);
+            }
+            ChebyshevPolynomial pa = new ChebyshevPolynomial(a);
+            ChebyshevPolynomial pb = new ChebyshevPolynomial(b);
+            double[] direct = pa.multiplyDirect(pb).coeffs();
+            double[] dct = pa.multiplyDCT(pb).coeffs();
+            assertEquals(direct.length, dct.length);
+            assertArrayEquals(direct, dct, 1e-12);
+            assertEquals(
+                    pa.value(.3) * pb.value(.3),
+                    pa.multiply(pb).value(.3),
+                    1e-10
+            );
+        }
+    }
+}
@@ -34,6 +34,53 @@ public class MathUtilTest {
         assertArrayEquals(expectedChebyshevMoments, convertedChebyshevMoments, 1e-14);
     }
 
+    @Test
+    public void testBatchChebyMoments() {
+        MomentData[] datasets = {new HepData(), new OccupancyData()};
+        int k = 9;
+        double[] mins = new double[datasets.length];
+        double[] maxs = new double[datasets.length];
+        double[] sums = new double[datasets.length * k];
+        for (int c = 0; c < datasets.length; c++) {
+            mins[c] = datasets[c].getMin();
+            maxs[c] = datasets[c].getMax();
+            System.arraycopy(datasets[c].getPowerSums(k), 0, sums, c * k, k);
+        }
+        double[] batched = new double[sums.length];
+        MathUtil.powerSumsToChebyMoments(mins, maxs, sums, k, batched);
+        for (int c = 0; c < datasets.length; c++) {
+            double[] expected = MathUtil.powerSumsToChebyMoments(
+                    mins[c], maxs[c], datasets[c].getPowerSums(k)
+            );
+            assertArrayEquals(expected, Arrays.copyOfRange(batched, c * k, (c + 1) * k), 0.0);
+        }
+
+        // cached tables agree with freshly computed ones
+        long[][] binoms = MathUtil.getBinomials(40);
+        int[][] cCoeffs = MathUtil.getChebyCoefficients(20);
+        for (int i = 0; i <= 20; i++) {
+            assertArrayEquals(
+                    Arrays.copyOf(binoms[i], 21),
+                    Arrays.copyOf(MathUtil.binomialTable(20)[i], 21)
+            );
+            assertArrayEquals(
+                    cCoeffs[i],
+                    Arrays.copyOf(MathUtil.chebyCoefficientTable(20)[i], 21)
+            );
+        }
+
+        // every cached coefficient is exact: T_i(1) = 1, summed in long so
+        // a coefficient that wrapped around would show up
+        int[][] cached = MathUtil.chebyCoefficientTable(1);
+        for (int[] coeffs : cached) {
+            long sum = 0;
+            for (int c : coeffs) {
+                sum += c;
+            }
+            assertEquals(1, sum);
+        }
+    }
+
     @Test
     public void testChebyAccuracy() {
         MomentData data = new OccupancyData();
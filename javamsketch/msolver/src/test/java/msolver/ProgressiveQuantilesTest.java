@@ -0,0 +1,89 @@
+package msolver;
+
+import msolver.data.ExponentialData;
+import msolver.data.MomentData;
+import msolver.struct.MomentStruct;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ProgressiveQuantilesTest {
+    private MomentStruct getStruct(MomentData data, int k) {
+        MomentStruct m = new MomentStruct();
+        m.min = data.getMin();
+        m.max = data.getMax();
+        m.logMin = data.getLogMin();
+        m.logMax = data.getLogMax();
+        m.powerSums = data.getPowerSums(k);
+        m.logSums = data.getLogSums(k);
+        return m;
+    }
+
+    @Test
+    public void testStages() throws Exception {
+        MomentStruct m = getStruct(new ExponentialData(), 7);
+        double[] ps = {.1, .5, .9, .99};
+        ProgressiveQuantiles pq = new ProgressiveQuantiles(m);
+        List<ProgressiveQuantiles.Result> results = new ArrayList<>();
+        CompletableFuture<ProgressiveQuantiles.Result> f = pq.query(ps, results::add);
+        ProgressiveQuantiles.Result last = f.get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, results.size());
+        assertEquals(ProgressiveQuantiles.Stage.BOUNDS, results.get(0).stage);
+        assertEquals(ProgressiveQuantiles.Stage.ESTIMATE, results.get(1).stage);
+        assertEquals(ProgressiveQuantiles.Stage.FINAL, last.stage);
+        assertSame(last, results.get(2));
+
+        ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                m.min, m.max, m.powerSums, m.logMin, m.logMax, m.logSums
+        );
+        solver.solve(1e-9);
+        double[] expected = solver.estimateQuantiles(ps);
+        for (int i = 0; i < ps.length; i++) {
+            // exponential with mean 1
+            double trueQuantile = -Math.log(1 - ps[i]);
+            for (ProgressiveQuantiles.Result r : results) {
+                assertTrue(r.lowerBounds[i] <= trueQuantile);
+                assertTrue(r.upperBounds[i] >= trueQuantile);
+                assertTrue(r.quantiles[i] >= r.lowerBounds[i]);
+                assertTrue(r.quantiles[i] <= r.upperBounds[i]);
+            }
+            assertEquals(expected[i], last.quantiles[i], 1e-9);
+            assertTrue(last.errors[i] >= 0 && last.errors[i] <= 1);
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        MomentStruct m = getStruct(new ExponentialData(), 7);
+        double[] ps = {.5};
+        ProgressiveQuantiles pq = new ProgressiveQuantiles(m);
+        List<ProgressiveQuantiles.Stage> stages = new ArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CompletableFuture<ProgressiveQuantiles.Result> f = pq.query(
+                ps,
+                r -> {
+                    stages.add(r.stage);
+                    started.countDown();
+                    try {
+                        cancelled.await();
+                    } catch (InterruptedException e) {}
+                },
+                r -> new Thread(r).start()
+        );
+        started.await();
+        f.cancel(true);
+        cancelled.countDown();
+        assertTrue(f.isCancelled());
+        Thread.sleep(50);
+        assertEquals(1, stages.size());
+        assertEquals(ProgressiveQuantiles.Stage.BOUNDS, stages.get(0));
+    }
+}
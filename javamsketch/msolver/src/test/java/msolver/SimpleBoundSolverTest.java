@@ -1,5 +1,7 @@
 package msolver;
 
+import msolver.data.ExponentialData;
+import msolver.data.MilanData;
 import msolver.data.MomentData;
 import msolver.data.RetailQuantityData;
 import msolver.data.RetailQuantityLogData;
@@ -10,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -130,4 +133,47 @@ public class SimpleBoundSolverTest {
         assertTrue(entropies.get(0) < entropies.get(1));
         assertTrue(entropies.get(1) > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFastPathMatches() {
+        List<MomentData> dataSets = Arrays.asList(
+                new ExponentialData(),
+                new MilanData(),
+                new RetailQuantityData(),
+                new RetailQuantityLogData()
+        );
+        for (MomentData data : dataSets) {
+            for (int k = 3; k <= 9; k += 2) {
+                double[] moments = MathUtil.powerSumsToPosMoments(
+                        data.getPowerSums(k), data.getMin(), data.getMax()
+                );
+                SimpleBoundSolver fast = new SimpleBoundSolver(k);
+                SimpleBoundSolver slow = new SimpleBoundSolver(k);
+                slow.setUseFastPath(false);
+
+                double[] xs = {.001, .01, .1, .3, .5, .7, .9};
+                double[] ps = {.1, .2, .3, .4, .5, .6, .7};
+                double[] boundSizes = slow.solveBounds(moments, xs);
+                double[] fastErrors = fast.getMaxErrors(moments, xs, ps, boundSizes);
+                double[] slowErrors = slow.getMaxErrors(moments, xs, ps, boundSizes);
+                assertArrayEquals(slowErrors, fastErrors, 1e-6);
+                for (int i = 0; i < xs.length; i++) {
+                    assertArrayEquals(
+                            slow.getBoundEndpoints(moments, xs[i], boundSizes[i]),
+                            fast.getBoundEndpoints(moments, xs[i], boundSizes[i]),
+                            1e-6
+                    );
+                }
+
+                SimpleBoundSolver.CanonicalDistribution[] fastDists =
+                        fast.getCanonicalDistributions(moments, xs);
+                SimpleBoundSolver.CanonicalDistribution[] slowDists =
+                        slow.getCanonicalDistributions(moments, xs);
+                // tiny weights at k=9 are poorly conditioned in either path
+                for (int i = 0; k < 9 && i < xs.length; i++) {
+                    assertEquals(slowDists[i].entropy(), fastDists[i].entropy(), 1e-6);
+                }
+            }
+        }
+    }
+}
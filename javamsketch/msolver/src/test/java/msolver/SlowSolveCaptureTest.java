@@ -0,0 +1,48 @@
+package msolver;
+
+import msolver.data.ExponentialData;
+import msolver.data.MomentData;
+import msolver.struct.MomentStruct;
+import msolver.struct.MomentStructLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlowSolveCaptureTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testThreshold() throws Exception {
+        MomentData data = new ExponentialData();
+        MomentStruct ms = new MomentStruct();
+        ms.min = data.getMin();
+        ms.max = data.getMax();
+        ms.logMin = data.getLogMin();
+        ms.logMax = data.getLogMax();
+        ms.powerSums = data.getPowerSums(7);
+        ms.logSums = data.getLogSums(7);
+
+        File f = new File(folder.getRoot(), "slow.log");
+        SlowSolveCapture capture = new SlowSolveCapture(f.getPath(), 1000);
+        assertFalse(capture.record(ms, 1e-9, 999));
+        assertTrue(capture.record(ms, 1e-9, 1000));
+        ChebyshevMomentSolver2 solver = capture.solve(ms, 1e-9);
+        assertTrue(solver.isConverged());
+        capture.close();
+
+        List<MomentStructLog.Entry> entries = MomentStructLog.read(f.getPath());
+        assertEquals(capture.getNumCaptured(), entries.size());
+        assertEquals(1000, entries.get(0).solveNanos);
+        assertArrayEquals(ms.powerSums, entries.get(0).ms.powerSums, 0.0);
+        assertArrayEquals(ms.logSums, entries.get(0).ms.logSums, 0.0);
+    }
+}
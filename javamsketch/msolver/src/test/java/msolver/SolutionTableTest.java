@@ -0,0 +1,70 @@
+package msolver;
+
+import msolver.data.ExponentialData;
+import msolver.data.GaussianData;
+import msolver.data.MomentData;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class SolutionTableTest {
+    private ChebyshevMomentSolver2 getSolver(MomentData data, int k) {
+        return ChebyshevMomentSolver2.fromPowerSums(
+                data.getMin(), data.getMax(), data.getPowerSums(k),
+                data.getLogMin(), data.getLogMax(), data.getLogSums(1)
+        );
+    }
+
+    @Test
+    public void testExactHit() {
+        MomentData data = new GaussianData();
+        SolutionTable table = new SolutionTable();
+        ChebyshevMomentSolver2 solver = getSolver(data, 5);
+        solver.solve(1e-9);
+        assertTrue(table.add(solver));
+
+        ChebyshevMomentSolver2 solver2 = getSolver(data, 5);
+        int steps = solver2.solve(table, 1e-9);
+        assertEquals(0, steps);
+        assertTrue(solver2.isConverged());
+        double[] ps = {.1, .5, .9};
+        assertArrayEquals(
+                solver.estimateQuantiles(ps),
+                solver2.estimateQuantiles(ps),
+                1e-6
+        );
+    }
+
+    @Test
+    public void testWarmStart() throws Exception {
+        MomentData data = new ExponentialData();
+        SolutionTable table = new SolutionTable();
+        ChebyshevMomentSolver2 solver = getSolver(data, 4);
+        solver.solve(1e-9);
+        table.add(solver);
+        assertNull(table.interpolate(false, 4, 1, solver.getChebyshevMoments()));
+
+        File tmp = File.createTempFile("solution_table", ".bin");
+        tmp.deleteOnExit();
+        table.save(tmp.getPath());
+        SolutionTable loaded = SolutionTable.load(tmp.getPath());
+        assertEquals(1, loaded.size());
+
+        // slightly different moments should still converge to the same answer
+        double[] d_mus = solver.getChebyshevMoments().clone();
+        d_mus[2] += 1e-3;
+        ChebyshevMomentSolver2 cold = new ChebyshevMomentSolver2(
+                true, d_mus.length, d_mus, 0, 1, 0, 1
+        );
+        int coldSteps = cold.solve(1e-9);
+        ChebyshevMomentSolver2 warm = new ChebyshevMomentSolver2(
+                true, d_mus.length, d_mus, 0, 1, 0, 1
+        );
+        int warmSteps = warm.solve(loaded, 1e-9);
+        assertTrue(warm.isConverged());
+        assertTrue(warmSteps < coldSteps);
+        assertArrayEquals(cold.getLambdas(), warm.getLambdas(), 1e-6);
+    }
+}
@@ -0,0 +1,54 @@
+package msolver.struct;
+
+import msolver.data.MilanData;
+import msolver.data.MomentData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MomentStructLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        MomentData data = new MilanData();
+        MomentStruct ms = new MomentStruct();
+        ms.min = data.getMin();
+        ms.max = data.getMax();
+        ms.logMin = data.getLogMin();
+        ms.logMax = data.getLogMax();
+        ms.powerSums = data.getPowerSums(9);
+        ms.logSums = data.getLogSums(7);
+
+        MomentStruct empty = new MomentStruct();
+        empty.powerSums = new double[]{1.0};
+
+        File f = new File(folder.getRoot(), "solves.log");
+        MomentStructLog.write(f.getPath(), Arrays.asList(
+                new MomentStructLog.Entry(ms, 1e-9, 12345),
+                new MomentStructLog.Entry(empty, 1e-4, 0)
+        ));
+        List<MomentStructLog.Entry> entries = MomentStructLog.read(f.getPath());
+        assertEquals(2, entries.size());
+
+        MomentStructLog.Entry e = entries.get(0);
+        assertEquals(12345, e.solveNanos);
+        assertEquals(1e-9, e.tolerance, 0.0);
+        assertEquals(ms.min, e.ms.min, 0.0);
+        assertEquals(ms.max, e.ms.max, 0.0);
+        assertEquals(ms.logMin, e.ms.logMin, 0.0);
+        assertEquals(ms.logMax, e.ms.logMax, 0.0);
+        assertArrayEquals(ms.powerSums, e.ms.powerSums, 0.0);
+        assertArrayEquals(ms.logSums, e.ms.logSums, 0.0);
+
+        assertEquals(0, entries.get(1).ms.logSums.length);
+    }
+}
@@ -0,0 +1,54 @@
+package msolver.thresholds;
+
+import msolver.data.ExponentialData;
+import msolver.data.GaussianData;
+import msolver.data.MomentData;
+import msolver.data.MilanData;
+import msolver.struct.MomentStruct;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BatchThresholdTest {
+    private MomentStruct getStruct(MomentData data, int k) {
+        MomentStruct m = new MomentStruct();
+        m.min = data.getMin();
+        m.max = data.getMax();
+        m.logMin = data.getLogMin();
+        m.logMax = data.getLogMax();
+        m.powerSums = data.getPowerSums(k);
+        m.logSums = data.getLogSums(k);
+        return m;
+    }
+
+    @Test
+    public void testMatchesCascade() {
+        MomentData[] datasets = {new ExponentialData(), new MilanData(), new GaussianData()};
+        int[] ks = {3, 5, 7};
+        MomentStruct[] cells = new MomentStruct[datasets.length * ks.length];
+        for (int i = 0; i < datasets.length; i++) {
+            for (int j = 0; j < ks.length; j++) {
+                cells[i * ks.length + j] = getStruct(datasets[i], ks[j]);
+            }
+        }
+
+        BatchThreshold batch = new BatchThreshold();
+        batch.setNumThreads(2);
+        double[] xs = {-1, 0.5, 2, 4, 100};
+        for (double x : xs) {
+            boolean[] results = batch.threshold(cells, x, .01);
+            int numPruned = 0;
+            for (int count : batch.getNumPruned()) {
+                numPruned += count;
+            }
+            assertEquals(
+                    cells.length,
+                    batch.getNumTrivial() + numPruned + batch.getNumSolved()
+            );
+            for (int i = 0; i < cells.length; i++) {
+                ThresholdCascade tc = new ThresholdCascade(cells[i]);
+                assertEquals(tc.threshold(x, .01), results[i]);
+            }
+        }
+    }
+}
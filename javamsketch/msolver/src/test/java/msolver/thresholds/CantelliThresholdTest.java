@@ -0,0 +1,32 @@
+package msolver.thresholds;
+
+import msolver.data.ExponentialData;
+import msolver.data.MomentData;
+import msolver.struct.MomentStruct;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CantelliThresholdTest {
+    @Test
+    public void testExponential() {
+        MomentData data = new ExponentialData();
+        MomentStruct m = new MomentStruct();
+        m.min = data.getMin();
+        m.max = data.getMax();
+        m.logMin = data.getLogMin();
+        m.logMax = data.getLogMax();
+        m.powerSums = data.getPowerSums(3);
+        m.logSums = data.getLogSums(3);
+
+        CantelliThreshold ct = new CantelliThreshold(m);
+        // exponential with mean 1: P(X > 11) is tiny, cantelli gives <= 1/101
+        double[] bounds = ct.bound(11);
+        assertTrue(bounds[1] < .011);
+        assertTrue(bounds[0] <= Math.exp(-11));
+
+        bounds = ct.bound(.01);
+        assertTrue(bounds[0] > .4);
+        assertTrue(bounds[1] >= Math.exp(-.01));
+    }
+}
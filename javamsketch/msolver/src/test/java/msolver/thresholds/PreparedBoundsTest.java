@@ -0,0 +1,48 @@
+package msolver.thresholds;
+
+import msolver.MathUtil;
+import msolver.SimpleBoundSolver;
+import msolver.data.ExponentialData;
+import msolver.data.MomentData;
+import msolver.struct.MomentStruct;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PreparedBoundsTest {
+    @Test
+    public void testManyCutoffs() {
+        MomentData data = new ExponentialData();
+        MomentStruct m = new MomentStruct();
+        m.min = data.getMin();
+        m.max = data.getMax();
+        m.logMin = data.getLogMin();
+        m.logMax = data.getLogMax();
+        m.powerSums = data.getPowerSums(10);
+        m.logSums = data.getLogSums(10);
+
+        int n = 100;
+        double[] xs = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = m.min + (i + .5) * (m.max - m.min) / n;
+        }
+        PreparedBounds pb = new PreparedBounds(m);
+        double[][] cdfBounds = pb.boundCDF(xs);
+
+        SimpleBoundSolver boundSolver = new SimpleBoundSolver(10);
+        double[] moments = MathUtil.powerSumsToMoments(m.powerSums);
+        for (int i = 0; i < n; i++) {
+            assertTrue(cdfBounds[i][0] <= cdfBounds[i][1]);
+            if (i > 0) {
+                assertTrue(cdfBounds[i][1] >= cdfBounds[i-1][0]);
+            }
+
+            // matches unprepared computation
+            double[] boundSizes = boundSolver.solveBounds(moments, new double[]{xs[i]});
+            double[] rawBounds = boundSolver.getBoundEndpoints(moments, xs[i], boundSizes[0]);
+            double[] rttBounds = pb.rttBound(xs[i]);
+            assertTrue(rttBounds[0] >= 1.0 - rawBounds[1] - 1e-12);
+            assertTrue(rttBounds[1] <= 1.0 - rawBounds[0] + 1e-12);
+        }
+    }
+}
@@ -27,4 +27,55 @@ public class ThresholdCascadeTest {
         assertTrue(flag);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testStagesAndStats() {
+        MomentData data = new ExponentialData();
+        MomentStruct m = new MomentStruct();
+        m.min = data.getMin();
+        m.max = data.getMax();
+        m.logMin = data.getLogMin();
+        m.logMax = data.getLogMax();
+        m.powerSums = data.getPowerSums(7);
+        m.logSums = data.getLogSums(7);
+
+        ThresholdCascade exact = new ThresholdCascade(m);
+        ThresholdCascade adaptive = new ThresholdCascade(m);
+        adaptive.getStats().setAdaptive(true);
+        adaptive.getStats().setMinQueries(5);
+        ThresholdCascade approx = new ThresholdCascade(
+                m, ThresholdCascade.approximateStages(m, .05)
+        );
+        approx.getStats().setRecording(true);
+        double[] xs = {.1, .5, 1, 2, 3, 4, 6, 8};
+        for (int rep = 0; rep < 5; rep++) {
+            for (double x : xs) {
+                boolean expected = exact.threshold(x, .01);
+                assertEquals(expected, adaptive.threshold(x, .01));
+                approx.threshold(x, .01);
+            }
+        }
+
+        // stages are only timed and counted once recording is turned on
+        assertEquals(0, exact.getStats().getNumQueries(0));
+
+        CascadeStats stats = approx.getStats();
+        assertEquals(5, stats.getNumStages());
+        assertEquals("CantelliThreshold", stats.getNames()[0]);
+        assertEquals(xs.length * 5, stats.getNumQueries(0));
+        for (int i = 1; i < stats.getNumStages(); i++) {
+            assertEquals(
+                    stats.getNumQueries(i - 1) - stats.getNumPruned(i - 1),
+                    stats.getNumQueries(i)
+            );
+        }
+
+        int[] order = adaptive.getStats().getOrder();
+        boolean[] seen = new boolean[order.length];
+        for (int stage : order) {
+            seen[stage] = true;
+        }
+        for (boolean b : seen) {
+            assertTrue(b);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package msolver.thresholds;
+
+import msolver.ChebyshevMomentSolver2;
+import msolver.struct.MomentStruct;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TopKQuantileTest {
+    private MomentStruct getStruct(double[] data, int k) {
+        MomentStruct m = new MomentStruct();
+        m.min = Double.MAX_VALUE;
+        m.max = -Double.MAX_VALUE;
+        m.logMin = Double.MAX_VALUE;
+        m.logMax = -Double.MAX_VALUE;
+        m.powerSums = new double[k];
+        m.logSums = new double[k];
+        for (double x : data) {
+            m.min = Math.min(m.min, x);
+            m.max = Math.max(m.max, x);
+            double logX = Math.log(x);
+            m.logMin = Math.min(m.logMin, logX);
+            m.logMax = Math.max(m.logMax, logX);
+            for (int i = 0; i < k; i++) {
+                m.powerSums[i] += Math.pow(x, i);
+                m.logSums[i] += Math.pow(logX, i);
+            }
+        }
+        return m;
+    }
+
+    @Test
+    public void testExponentialScales() {
+        Random r = new Random(0);
+        int numCells = 40;
+        MomentStruct[] cells = new MomentStruct[numCells];
+        for (int c = 0; c < numCells; c++) {
+            double scale = 1.0 + c;
+            double[] data = new double[2000];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = -scale * Math.log(1 - r.nextDouble());
+            }
+            cells[c] = getStruct(data, 5);
+        }
+
+        TopKQuantile query = new TopKQuantile();
+        int[] top = query.topK(cells, .99, 3);
+        assertEquals(3, top.length);
+        assertTrue(query.getNumSolvesAvoided() > 0);
+        assertEquals(numCells, query.getNumSolves() + query.getNumSolvesAvoided());
+
+        // brute force over every cell
+        double[] estimates = new double[numCells];
+        for (int c = 0; c < numCells; c++) {
+            MomentStruct ms = cells[c];
+            ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                    ms.min, ms.max, ms.powerSums,
+                    ms.logMin, ms.logMax, ms.logSums
+            );
+            solver.solve(1e-9);
+            estimates[c] = solver.estimateQuantiles(new double[]{.99})[0];
+        }
+        double[] topEstimates = query.getTopEstimates();
+        for (int j = 0; j < top.length; j++) {
+            assertEquals(estimates[top[j]], topEstimates[j], 1e-6);
+            if (j > 0) {
+                assertTrue(topEstimates[j] <= topEstimates[j-1]);
+            }
+        }
+        int numLarger = 0;
+        for (int c = 0; c < numCells; c++) {
+            if (estimates[c] > topEstimates[2]) {
+                numLarger++;
+            }
+        }
+        assertEquals(2, numLarger);
+    }
+}
@@ -1,6 +1,8 @@
 import io.CSVOutput;
-import io.DataSource;
-import io.SimpleCSVDataSource;
+import io.ChunkedDataSource;
+import io.DataSlice;
+import io.ExactQuantileOracle;
+import io.SyntheticDataSource;
 import sketches.QuantileSketch;
 import sketches.SketchLoader;
 
@@ -18,10 +20,18 @@ public class AccuracyBench {
     private List<Double> quantiles;
     private int numTrials;
     private int numSolveTrials;
+    // Number of values drawn when fileName names a synthetic distribution
+    private long syntheticSize;
+    // Compute exact quantiles of the data, through a cached sorted copy
+    // of the column for files
+    private boolean calcTrueQuantiles;
 
     private boolean verbose = false;
     private boolean calcError = false;
     private boolean appendTimeStamp = true;
+    // Number of slowest moment sketch queries to keep for replay
+    private int dumpSlowest;
+    private QueryLatencies latencies;
 
     public AccuracyBench(String confFile) throws IOException{
         RunConfig conf = RunConfig.fromJsonFile(confFile);
@@ -32,10 +42,13 @@ public class AccuracyBench {
         quantiles = conf.get("quantiles");
         numTrials = conf.get("numTrials");
         numSolveTrials = conf.get("numSolveTrials");
+        syntheticSize = conf.<Number>get("syntheticSize", 10000000L).longValue();
+        calcTrueQuantiles = conf.get("calcTrueQuantiles", false);
 
         verbose = conf.get("verbose", false);
         calcError = conf.get("calcError", false);
         appendTimeStamp = conf.get("appendTimeStamp", false);
+        dumpSlowest = conf.get("dumpSlowest", 0);
     }
 
     public static void main(String[] args) throws Exception {
@@ -47,16 +60,41 @@ public class AccuracyBench {
         CSVOutput output = new CSVOutput();
         output.setAddTimeStamp(bench.appendTimeStamp);
         output.writeAllResults(results, bench.testName);
+        output.writeAllResults(bench.latencies.getRows(), bench.testName + "_latency");
+        if (bench.latencies.hasSlowest()) {
+            bench.latencies.writeSlowest("results/" + bench.testName + "_slowest.log");
+        }
+    }
+
+    public QueryLatencies getLatencies() {
+        return latencies;
     }
 
     public List<Map<String, String>> run() throws Exception {
-        DataSource source = new SimpleCSVDataSource(fileName, columnIdx);
-        long startTime = System.currentTimeMillis();
-        double[] data = source.get();
-        long endTime = System.currentTimeMillis();
-        long loadTime = endTime - startTime;
-        System.out.println("Loaded Data in: "+loadTime);
+        // Data is streamed into each sketch, so it never has to fit in memory
+        SyntheticDataSource synthetic = SyntheticDataSource.fromName(fileName, syntheticSize, 0);
+        ChunkedDataSource source;
+        // Synthetic data also comes with the quantiles of its distribution,
+        // which differ from those of the sample drawn from it
+        double[] distQs = null;
+        double[] trueQs = null;
+        if (synthetic != null) {
+            source = synthetic;
+            distQs = synthetic.getQuantiles(quantiles);
+            if (calcTrueQuantiles) {
+                trueQs = ExactQuantileOracle.selectInPlace(synthetic.get(), quantiles);
+            }
+        } else {
+            source = ChunkedDataSource.forFile(fileName, columnIdx);
+            if (calcTrueQuantiles) {
+                try (ExactQuantileOracle oracle = ExactQuantileOracle.forFile(fileName, columnIdx)) {
+                    trueQs = oracle.getQuantiles(quantiles);
+                }
+            }
+        }
+        long startTime, endTime;
         List<Map<String, String>> results = new ArrayList<>();
+        latencies = new QueryLatencies(dumpSlowest);
 
         for (String sketchName : methods.keySet()) {
             List<Double> sizeParams = methods.get(sketchName);
@@ -70,11 +108,26 @@ public class AccuracyBench {
                     curSketch.setSizeParam(sParam);
                     curSketch.initialize();
 
-                    startTime = System.nanoTime();
-                    curSketch.add(data);
-                    endTime = System.nanoTime();
-                    long trainTime = endTime - startTime;
+                    source.reset();
+                    long trainTime = 0;
+                    long loadTime = 0;
+                    long n = 0;
+                    while (true) {
+                        startTime = System.nanoTime();
+                        DataSlice chunk = source.next();
+                        endTime = System.nanoTime();
+                        loadTime += endTime - startTime;
+                        if (chunk == null) {
+                            break;
+                        }
+                        startTime = System.nanoTime();
+                        curSketch.add(chunk.data, chunk.offset, chunk.length);
+                        endTime = System.nanoTime();
+                        trainTime += endTime - startTime;
+                        n += chunk.length;
+                    }
                     if (verbose) {
+                        System.out.println("Loaded Data in: "+loadTime / 1000000);
                         System.out.println("Trained Sketch");
                     }
 
@@ -82,12 +135,15 @@ public class AccuracyBench {
                     double[] errors = curSketch.getErrors();
 
                     curSketch.setCalcError(false);
-                    startTime = System.nanoTime();
+                    long totalQueryTime = 0;
                     for (int curSolveTrial = 0; curSolveTrial < numSolveTrials; curSolveTrial++) {
+                        startTime = System.nanoTime();
                         curSketch.getQuantiles(quantiles);
+                        endTime = System.nanoTime();
+                        latencies.record(fileName, curSketch, sParam, endTime - startTime);
+                        totalQueryTime += endTime - startTime;
                     }
-                    endTime = System.nanoTime();
-                    long queryTime = (endTime - startTime) / numSolveTrials;
+                    long queryTime = totalQueryTime / numSolveTrials;
                     curSketch.setCalcError(calcError);
 
                     for (int i = 0; i < qs.length; i++) {
@@ -102,17 +158,24 @@ public class AccuracyBench {
                         curResults.put("q", String.format("%f", curP));
                         curResults.put("quantile_estimate", Double.toString(curQ));
                         curResults.put("bound_size", String.format("%f", curError));
+                        if (trueQs != null) {
+                            curResults.put("true_quantile", Double.toString(trueQs[i]));
+                        }
+                        if (distQs != null) {
+                            curResults.put("dist_quantile", Double.toString(distQs[i]));
+                        }
                         curResults.put("space", String.format("%d", curSketch.getSize()));
                         curResults.put("size_param", String.format("%.2f", sParam));
                         curResults.put("train_time", String.format("%d", trainTime));
                         curResults.put("query_time", String.format("%d", queryTime));
-                        curResults.put("n", String.format("%d", data.length));
+                        curResults.put("n", String.format("%d", n));
                         results.add(curResults);
                     }
                 }
             }
         }
 
+        source.close();
         return results;
     }
 }
@@ -0,0 +1,97 @@
+import io.ChunkedDataSource;
+import io.DataSlice;
+import sketches.QuantileSketch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Builds one sketch per cell while streaming through a chunked source, so
+ * the benchmarks only hold the sketches in memory. Cells are either the
+ * chunks of a pregrouped source or runs of cellSize consecutive values.
+ */
+public class CellTrainer {
+    private int cellSize;
+    private boolean pregrouped;
+
+    // Time spent reading the source and adding to sketches on the last run
+    private long loadTime;
+    private long trainTime;
+
+    public CellTrainer(int cellSize, boolean pregrouped) {
+        this.cellSize = cellSize;
+        this.pregrouped = pregrouped;
+    }
+
+    public ArrayList<QuantileSketch> train(
+            ChunkedDataSource source,
+            Supplier<QuantileSketch> sFactory
+    ) throws IOException {
+        source.reset();
+        ArrayList<QuantileSketch> cellSketches = new ArrayList<>();
+        // Cells that straddle two chunks are gathered here so that every
+        // cell is still added in a single call
+        double[] cellBuffer = pregrouped ? null : new double[cellSize];
+        int cellFill = 0;
+        loadTime = 0;
+        trainTime = 0;
+
+        while (true) {
+            long startTime = System.nanoTime();
+            DataSlice chunk = source.next();
+            long endTime = System.nanoTime();
+            loadTime += endTime - startTime;
+            if (chunk == null) {
+                break;
+            }
+
+            startTime = System.nanoTime();
+            if (pregrouped) {
+                cellSketches.add(newCell(sFactory, chunk.data, chunk.offset, chunk.length));
+            } else {
+                int pos = 0;
+                while (pos < chunk.length) {
+                    if (cellFill == 0 && chunk.length - pos >= cellSize) {
+                        cellSketches.add(newCell(sFactory, chunk.data, chunk.offset + pos, cellSize));
+                        pos += cellSize;
+                    } else {
+                        int len = Math.min(cellSize - cellFill, chunk.length - pos);
+                        System.arraycopy(chunk.data, chunk.offset + pos, cellBuffer, cellFill, len);
+                        cellFill += len;
+                        pos += len;
+                        if (cellFill == cellSize) {
+                            cellSketches.add(newCell(sFactory, cellBuffer, 0, cellSize));
+                            cellFill = 0;
+                        }
+                    }
+                }
+            }
+            endTime = System.nanoTime();
+            trainTime += endTime - startTime;
+        }
+        if (cellFill > 0) {
+            long startTime = System.nanoTime();
+            cellSketches.add(newCell(sFactory, cellBuffer, 0, cellFill));
+            trainTime += System.nanoTime() - startTime;
+        }
+        return cellSketches;
+    }
+
+    private static QuantileSketch newCell(
+            Supplier<QuantileSketch> sFactory,
+            double[] data, int off, int len
+    ) {
+        QuantileSketch curSketch = sFactory.get();
+        curSketch.initialize();
+        curSketch.add(data, off, len);
+        return curSketch;
+    }
+
+    public long getLoadTime() {
+        return loadTime;
+    }
+    public long getTrainTime() {
+        return trainTime;
+    }
+}
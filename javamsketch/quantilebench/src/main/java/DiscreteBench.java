@@ -19,6 +19,9 @@ public class DiscreteBench {
     private List<Integer> cardinalities;
     private Map<String, List<Double>> methods;
     private List<Double> quantiles;
+    // Number of slowest moment sketch queries to keep for replay
+    private int dumpSlowest;
+    private QueryLatencies latencies;
 
     public DiscreteBench(String confFile) throws IOException {
         RunConfig conf = RunConfig.fromJsonFile(confFile);
@@ -30,10 +33,12 @@ public class DiscreteBench {
         totalSize = conf.get("totalSize");
         methods = conf.get("methods");
         quantiles = conf.get("quantiles");
+        dumpSlowest = conf.get("dumpSlowest", 0);
     }
 
     public List<Map<String, String>> run() throws Exception {
         List<Map<String, String>> results = new ArrayList<>();
+        latencies = new QueryLatencies(dumpSlowest);
         int numTests = cardinalities.size();
         for (int di = 0; di < numTests; di++) {
             int curN = cardinalities.get(di);
@@ -58,13 +63,17 @@ public class DiscreteBench {
                     long trainTime = endTime - startTime;
                     System.out.println("Trained Sketch");
 
-                    startTime = System.nanoTime();
+                    String dataset = String.format("discrete_%d", curN);
                     double[] qs = new double[0];
+                    long totalQueryTime = 0;
                     for (int curSolveTrial = 0; curSolveTrial < numSolveTrials; curSolveTrial++) {
+                        startTime = System.nanoTime();
                         qs = curSketch.getQuantiles(quantiles);
+                        endTime = System.nanoTime();
+                        latencies.record(dataset, curSketch, sParam, endTime - startTime);
+                        totalQueryTime += endTime - startTime;
                     }
-                    endTime = System.nanoTime();
-                    long queryTime = (endTime - startTime) / numSolveTrials;
+                    long queryTime = totalQueryTime / numSolveTrials;
 
                     for (int i = 0; i < qs.length; i++) {
                         double curP = quantiles.get(i);
@@ -97,5 +106,9 @@ public class DiscreteBench {
         CSVOutput output = new CSVOutput();
         output.setAddTimeStamp(false);
         output.writeAllResults(results, bench.testName);
+        output.writeAllResults(bench.latencies.getRows(), bench.testName + "_latency");
+        if (bench.latencies.hasSlowest()) {
+            bench.latencies.writeSlowest("results/" + bench.testName + "_slowest.log");
+        }
     }
 }
@@ -0,0 +1,236 @@
+import io.*;
+import sketches.QuantileSketch;
+import sketches.SketchLoader;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures ingestion throughput as the number of threads adding to sketches
+ * grows. In "local" mode every thread fills its own sketch and the results
+ * are merged at the end, in "shared" mode all threads add batches to a
+ * single sketch under its lock.
+ */
+public class IngestScalingBench {
+    private static final List<Double> MEDIAN = Collections.singletonList(0.5);
+
+    private String testName;
+    private String fileName;
+    private int columnIdx;
+    // Number of values drawn when fileName names a synthetic distribution
+    private long syntheticSize;
+
+    private Map<String, List<Double>> methods;
+    private List<Integer> threadCounts;
+    private List<String> modes;
+    // Values passed to each add call
+    private int batchSize;
+    private int numTrials;
+
+    private boolean appendTimeStamp;
+
+    public IngestScalingBench(String confFile) throws IOException {
+        RunConfig conf = RunConfig.fromJsonFile(confFile);
+        testName = conf.get("testName");
+        fileName = conf.get("fileName", "gauss");
+        columnIdx = conf.get("columnIdx", 0);
+        syntheticSize = conf.<Number>get("syntheticSize", 100000000L).longValue();
+
+        methods = conf.get("methods");
+        threadCounts = conf.get("threadCounts", Arrays.asList(1, 2, 4, 8));
+        modes = conf.get("modes", Arrays.asList("local", "shared"));
+        batchSize = conf.get("batchSize", 1000);
+        numTrials = conf.get("numTrials", 1);
+
+        appendTimeStamp = conf.get("appendTimeStamp", false);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String confFile = args[0];
+        IngestScalingBench bench = new IngestScalingBench(confFile);
+
+        List<Map<String, String>> results = bench.run();
+        CSVOutput output = new CSVOutput();
+        output.setAddTimeStamp(bench.appendTimeStamp);
+        output.writeAllResults(results, bench.testName);
+    }
+
+    private DataSource getSource() {
+        SyntheticDataSource synthetic = SyntheticDataSource.fromName(fileName, syntheticSize, 0);
+        if (synthetic != null) {
+            return synthetic;
+        } else if (fileName.endsWith(".bin")) {
+            return new MappedDataSource(fileName);
+        } else {
+            return new ParallelCSVDataSource(fileName, columnIdx);
+        }
+    }
+
+    public List<Map<String, String>> run() throws Exception {
+        double[] data = getSource().get();
+        System.out.println("Loaded "+data.length+" values");
+        List<Map<String, String>> results = new ArrayList<>();
+
+        for (String sketchName : methods.keySet()) {
+            List<Double> sizeParams = methods.get(sketchName);
+            for (double sParam : sizeParams) {
+                for (String mode : modes) {
+                    // throughput at the smallest thread count, the baseline for scaling efficiency
+                    double baseThroughput = 0.0;
+                    int baseThreads = 0;
+                    for (int numThreads : threadCounts) {
+                        for (int curTrial = 0; curTrial < numTrials; curTrial++) {
+                            System.gc();
+                            System.out.println(sketchName + ":" + (int) sParam + "/" + mode + "@" + numThreads + "#" + curTrial);
+                            IngestResult r = ingest(data, sketchName, sParam, mode, numThreads);
+
+                            double throughput = data.length / (r.totalTime / 1.0e9);
+                            if (baseThreads == 0) {
+                                baseThreads = numThreads;
+                                baseThroughput = throughput;
+                            }
+                            double efficiency = (throughput / baseThroughput) / ((double) numThreads / baseThreads);
+
+                            Map<String, String> curResults = new HashMap<>();
+                            curResults.put("dataset", fileName);
+                            curResults.put("sketch", r.sketch.getName());
+                            curResults.put("size_param", String.format("%.2f", sParam));
+                            curResults.put("mode", mode);
+                            curResults.put("num_threads", String.format("%d", numThreads));
+                            curResults.put("trial", String.format("%d", curTrial));
+                            curResults.put("train_time", String.format("%d", r.trainTime));
+                            curResults.put("merge_time", String.format("%d", r.mergeTime));
+                            curResults.put("values_per_sec", String.format("%f", throughput));
+                            curResults.put("scaling_efficiency", String.format("%f", efficiency));
+                            curResults.put("alloc_bytes", String.format("%d", r.allocBytes));
+                            curResults.put("alloc_rate", String.format("%f", r.allocBytes / (r.totalTime / 1.0e9)));
+                            curResults.put("space", String.format("%d", r.sketch.getSize()));
+                            // sanity check on the merged sketch rather than a full accuracy run
+                            curResults.put("median", String.format("%g", r.sketch.getQuantiles(MEDIAN)[0]));
+                            curResults.put("n", String.format("%d", data.length));
+                            results.add(curResults);
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static class IngestResult {
+        QuantileSketch sketch;
+        long trainTime;
+        long mergeTime;
+        long totalTime;
+        long allocBytes;
+    }
+
+    private static QuantileSketch newSketch(String sketchName, double sParam) throws IOException {
+        QuantileSketch curSketch = SketchLoader.load(sketchName);
+        curSketch.setCalcError(false);
+        curSketch.setSizeParam(sParam);
+        curSketch.initialize();
+        return curSketch;
+    }
+
+    /**
+     * @return bytes allocated so far by the current thread, or 0 if the JVM
+     * does not track allocations per thread
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId()
+            );
+        }
+        return 0;
+    }
+
+    private IngestResult ingest(
+            double[] data,
+            String sketchName,
+            double sParam,
+            String mode,
+            int numThreads
+    ) throws Exception {
+        boolean shared;
+        if (mode.equals("local")) {
+            shared = false;
+        } else if (mode.equals("shared")) {
+            shared = true;
+        } else {
+            throw new IOException("Invalid mode: "+mode);
+        }
+
+        QuantileSketch[] sketches = new QuantileSketch[numThreads];
+        QuantileSketch sharedSketch = shared ? newSketch(sketchName, sParam) : null;
+        for (int t = 0; t < numThreads; t++) {
+            sketches[t] = shared ? sharedSketch : newSketch(sketchName, sParam);
+        }
+
+        final AtomicLong allocBytes = new AtomicLong();
+        // first exception thrown by any of the ingest threads
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final CountDownLatch doneSignal = new CountDownLatch(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            final QuantileSketch curSketch = sketches[t];
+            final int start = (int)((long) data.length * t / numThreads);
+            final int end = (int)((long) data.length * (t + 1) / numThreads);
+            Runnable ingestRunnable = () -> {
+                try {
+                    startSignal.await();
+                    long startAlloc = getAllocatedBytes();
+                    for (int off = start; off < end; off += batchSize) {
+                        int len = Math.min(batchSize, end - off);
+                        if (shared) {
+                            synchronized (curSketch) {
+                                curSketch.add(data, off, len);
+                            }
+                        } else {
+                            curSketch.add(data, off, len);
+                        }
+                    }
+                    allocBytes.addAndGet(getAllocatedBytes() - startAlloc);
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    doneSignal.countDown();
+                }
+            };
+            Thread ingestThread = new Thread(ingestRunnable);
+            ingestThread.start();
+        }
+
+        long startTime = System.nanoTime();
+        startSignal.countDown();
+        doneSignal.await();
+        long endTime = System.nanoTime();
+        if (failure.get() != null) {
+            throw new IOException("Failed to ingest into "+sketchName, failure.get());
+        }
+
+        IngestResult r = new IngestResult();
+        r.trainTime = endTime - startTime;
+        if (shared) {
+            r.sketch = sharedSketch;
+        } else {
+            long startAlloc = getAllocatedBytes();
+            startTime = System.nanoTime();
+            r.sketch = newSketch(sketchName, sParam);
+            r.sketch.merge(Arrays.asList(sketches));
+            endTime = System.nanoTime();
+            r.mergeTime = endTime - startTime;
+            allocBytes.addAndGet(getAllocatedBytes() - startAlloc);
+        }
+        r.totalTime = r.trainTime + r.mergeTime;
+        r.allocBytes = allocBytes.get();
+        return r;
+    }
+}
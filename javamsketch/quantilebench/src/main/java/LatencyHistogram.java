@@ -0,0 +1,129 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Log-bucketed histogram of latencies in nanoseconds, in the style of
+ * HdrHistogram. Values below 2^subBits are counted exactly, and every
+ * power of 2 above that is split into 2^(subBits-1) linear buckets, so
+ * reported percentiles are within a relative error of 2^-(subBits-1).
+ */
+public class LatencyHistogram {
+    private int subBits;
+    private int subCount;
+    private int halfCount;
+    private long[] counts;
+
+    private long totalCount;
+    private long totalSum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public LatencyHistogram() {
+        this(7);
+    }
+
+    public LatencyHistogram(int subBits) {
+        this.subBits = subBits;
+        this.subCount = 1 << subBits;
+        this.halfCount = subCount / 2;
+        // exact buckets, then half-sized sets of buckets for every possible shift
+        this.counts = new long[subCount + (64 - subBits) * halfCount];
+    }
+
+    private int getIndex(long value) {
+        if (value < subCount) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (subBits - 1);
+        int sub = (int) (value >>> shift);
+        return subCount + (shift - 1) * halfCount + (sub - halfCount);
+    }
+
+    /**
+     * @return largest value that falls in the bucket at idx
+     */
+    private long getHighestValue(int idx) {
+        if (idx < subCount) {
+            return idx;
+        }
+        int shift = (idx - subCount) / halfCount + 1;
+        long sub = (idx - subCount) % halfCount + halfCount;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[getIndex(value)]++;
+        totalCount++;
+        totalSum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public void add(LatencyHistogram other) {
+        if (other.subBits != subBits) {
+            throw new IllegalArgumentException("Histograms must have the same precision");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalSum += other.totalSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param p fraction between 0 and 1
+     * @return smallest bucket upper bound with at least p of the values at
+     * or below it, capped at the maximum value seen
+     */
+    public long getValueAtPercentile(double p) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long targetRank = Math.max(1, (long) Math.ceil(p * totalCount));
+        long rank = 0;
+        for (int i = 0; i < counts.length; i++) {
+            rank += counts[i];
+            if (rank >= targetRank) {
+                return Math.min(getHighestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+    public long getMax() {
+        return totalCount == 0 ? 0 : max;
+    }
+    public double getMean() {
+        return totalCount == 0 ? 0.0 : (double) totalSum / totalCount;
+    }
+
+    /**
+     * @return count, mean and p50/p90/p99/p999/max columns for a CSVOutput row
+     */
+    public Map<String, String> toRow() {
+        Map<String, String> row = new HashMap<>();
+        row.put("num_queries", String.format("%d", getCount()));
+        row.put("query_mean", String.format("%.0f", getMean()));
+        row.put("query_p50", String.format("%d", getValueAtPercentile(.5)));
+        row.put("query_p90", String.format("%d", getValueAtPercentile(.9)));
+        row.put("query_p99", String.format("%d", getValueAtPercentile(.99)));
+        row.put("query_p999", String.format("%d", getValueAtPercentile(.999)));
+        row.put("query_max", String.format("%d", getMax()));
+        return row;
+    }
+}
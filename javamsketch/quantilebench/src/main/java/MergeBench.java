@@ -1,9 +1,12 @@
 import io.*;
+import pipeline.CSVSketchPipeline;
 import sketches.QuantileSketch;
 import sketches.SketchLoader;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.Supplier;
 
 public class MergeBench {
     private String testName;
@@ -12,6 +15,12 @@ public class MergeBench {
     private int cellSize;
     private List<Double> cellFractions;
     private boolean pregrouped;
+    // Parse csv files straight into cell sketches on every core
+    private boolean pipelined;
+    // Number of values drawn when fileName names a synthetic distribution
+    private long syntheticSize;
+    // Compute the exact quantiles of the merged cells for each cell fraction
+    private boolean calcTrueQuantiles;
 
     private Map<String, List<Double>> methods;
     private List<Double> quantiles;
@@ -21,6 +30,9 @@ public class MergeBench {
     private boolean verbose;
     private boolean calcError;
     private boolean appendTimeStamp;
+    // Number of slowest moment sketch queries to keep for replay
+    private int dumpSlowest;
+    private QueryLatencies latencies;
 
     public MergeBench(String confFile) throws IOException{
         RunConfig conf = RunConfig.fromJsonFile(confFile);
@@ -31,6 +43,9 @@ public class MergeBench {
         List<Double> defaultCellFractions = Arrays.asList(1.0);
         cellFractions = conf.get("cellFractions", defaultCellFractions);
         pregrouped = conf.get("pregrouped", false);
+        pipelined = conf.get("pipelined", false);
+        syntheticSize = conf.<Number>get("syntheticSize", 1000000000L).longValue();
+        calcTrueQuantiles = conf.get("calcTrueQuantiles", false);
 
         methods = conf.get("methods");
         quantiles = conf.get("quantiles");
@@ -40,6 +55,7 @@ public class MergeBench {
         verbose = conf.get("verbose", false);
         calcError = conf.get("calcError", false);
         appendTimeStamp = conf.get("appendTimeStamp", false);
+        dumpSlowest = conf.get("dumpSlowest", 0);
     }
 
     public static void main(String[] args) throws Exception {
@@ -50,60 +66,81 @@ public class MergeBench {
         CSVOutput output = new CSVOutput();
         output.setAddTimeStamp(bench.appendTimeStamp);
         output.writeAllResults(results, bench.testName);
+        output.writeAllResults(bench.latencies.getRows(), bench.testName + "_latency");
+        if (bench.latencies.hasSlowest()) {
+            bench.latencies.writeSlowest("results/" + bench.testName + "_slowest.log");
+        }
     }
 
-    private ArrayList<double[]> getCells() throws IOException {
+    private ChunkedDataSource getSource() {
         if (pregrouped) {
-            GroupedCSVDataSource source = new GroupedCSVDataSource(fileName);
-            return source.get();
+            return new GroupedCSVDataSource(fileName);
+        }
+        SyntheticDataSource synthetic = SyntheticDataSource.fromName(fileName, syntheticSize, 0);
+        if (synthetic != null) {
+            return synthetic;
         } else {
-            double[] data;
-            if (fileName.equals("gauss")) {
-                int n = 1000000000;
-                Random r = new Random(0);
-                data = new double[n];
-                for (int i = 0; i < n; i++) {
-                    data[i] = r.nextGaussian();
-                }
-            } else {
-                DataSource source = new SimpleCSVDataSource(fileName, columnIdx);
-                data = source.get();
-            }
-            SeqDataGrouper grouper = new SeqDataGrouper(cellSize);
-            return grouper.group(data);
+            return ChunkedDataSource.forFile(fileName, columnIdx);
         }
     }
 
     public List<Map<String, String>> run() throws Exception {
-        System.out.println("Loading Data");
-        long startTime = System.currentTimeMillis();
-        ArrayList<double[]> cells = getCells();
-        long endTime = System.currentTimeMillis();
-        long loadTime = endTime - startTime;
-        System.out.println("Loaded Data in: "+loadTime);
+        // Cells are streamed from the source for every configuration, so
+        // the raw data is never held in memory
+        ChunkedDataSource source = getSource();
+        CellTrainer trainer = new CellTrainer(cellSize, pregrouped);
+        long startTime, endTime;
 
 
         List<Map<String, String>> results = new ArrayList<>();
+        latencies = new QueryLatencies(dumpSlowest);
+        // True quantiles by number of merged cells, shared by every sketch and trial
+        Map<Integer, double[]> trueQuantiles = null;
+        // Quantiles of the distribution synthetic data is drawn from
+        double[] distQuantiles = null;
+        if (source instanceof SyntheticDataSource) {
+            distQuantiles = ((SyntheticDataSource) source).getQuantiles(quantiles);
+        }
 
         int m = quantiles.size();
 
         for (String sketchName : methods.keySet()) {
             List<Double> sizeParams = methods.get(sketchName);
             for (double sParam : sizeParams) {
-                startTime = System.nanoTime();
-                int numCells = cells.size();
-                ArrayList<QuantileSketch> cellSketches = new ArrayList<>(numCells);
-                for (int i = 0; i < numCells; i++) {
-                    double[] cellData = cells.get(i);
-                    QuantileSketch curSketch = SketchLoader.load(sketchName);
+                Supplier<QuantileSketch> sFactory = () -> {
+                    QuantileSketch curSketch;
+                    try {
+                        curSketch = SketchLoader.load(sketchName);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
                     curSketch.setCalcError(calcError);
                     curSketch.setSizeParam(sParam);
-                    curSketch.initialize();
-                    curSketch.add(cellData);
-                    cellSketches.add(curSketch);
+                    return curSketch;
+                };
+                ArrayList<QuantileSketch> cellSketches;
+                long trainTime;
+                if (pipelined && !(source instanceof SyntheticDataSource) && !(source instanceof MappedDataSource)) {
+                    // parsing and sketching are fused, so train time includes parsing
+                    CSVSketchPipeline pipeline = new CSVSketchPipeline(fileName, columnIdx);
+                    pipeline.setGrouped(pregrouped);
+                    pipeline.setCellSize(cellSize);
+                    startTime = System.nanoTime();
+                    cellSketches = pipeline.run(sFactory);
+                    endTime = System.nanoTime();
+                    trainTime = endTime - startTime;
+                } else {
+                    cellSketches = trainer.train(source, sFactory);
+                    trainTime = trainer.getTrainTime();
+                    System.out.println("Loaded Data in: "+trainer.getLoadTime() / 1000000);
+                }
+                int numCells = cellSketches.size();
+                if (calcTrueQuantiles && trueQuantiles == null) {
+                    startTime = System.nanoTime();
+                    trueQuantiles = getTrueQuantiles(source, numCells);
+                    endTime = System.nanoTime();
+                    System.out.println("Calculated true quantiles in: "+(endTime - startTime) / 1000000);
                 }
-                endTime = System.nanoTime();
-                long trainTime = endTime - startTime;
 
                 for (int mergeFractionIdx = 0; mergeFractionIdx < cellFractions.size(); mergeFractionIdx++) {
                     double curFraction = cellFractions.get(mergeFractionIdx);
@@ -130,12 +167,15 @@ public class MergeBench {
                         System.gc();
 
                         double[] qs = new double[1];
-                        startTime = System.nanoTime();
+                        long totalQueryTime = 0;
                         for (int i = 0; i < numSolveTrials; i++) {
+                            startTime = System.nanoTime();
                             qs = mergedSketch.getQuantiles(quantiles);
+                            endTime = System.nanoTime();
+                            latencies.record(fileName, mergedSketch, sParam, endTime - startTime);
+                            totalQueryTime += endTime - startTime;
                         }
-                        endTime = System.nanoTime();
-                        long queryTime = (endTime - startTime) / numSolveTrials;
+                        long queryTime = totalQueryTime / numSolveTrials;
                         double[] errors = mergedSketch.getErrors();
 
                         for (int i = 0; i < qs.length; i++) {
@@ -150,6 +190,12 @@ public class MergeBench {
                             curResults.put("q", String.format("%f", curP));
                             curResults.put("quantile_estimate", Double.toString(curQ));
                             curResults.put("bound_size", String.format("%f", curError));
+                            if (trueQuantiles != null) {
+                                curResults.put("true_quantile", Double.toString(trueQuantiles.get(numCellSketchesToMerge)[i]));
+                            }
+                            if (distQuantiles != null) {
+                                curResults.put("dist_quantile", Double.toString(distQuantiles[i]));
+                            }
                             curResults.put("space", String.format("%d", mergedSketch.getSize()));
                             curResults.put("size_param", String.format("%.2f", sParam));
                             curResults.put("train_time", String.format("%d", trainTime));
@@ -163,6 +209,80 @@ public class MergeBench {
             }
         }
 
+        source.close();
         return results;
     }
+
+    /**
+     * Exact quantiles of the first cells for every cell fraction. Quantiles
+     * of a whole file come from its cached sorted column. The cells of the
+     * other fractions, and of synthetic sources, are read once and selected
+     * from in parallel.
+     */
+    private Map<Integer, double[]> getTrueQuantiles(
+            ChunkedDataSource source,
+            int numCells
+    ) throws IOException, InterruptedException {
+        Map<Integer, double[]> trueQs = new HashMap<>();
+        List<Integer> prefixCells = new ArrayList<>();
+        for (double curFraction : cellFractions) {
+            int numCellsToMerge = (int) (curFraction * numCells);
+            if (trueQs.containsKey(numCellsToMerge) || prefixCells.contains(numCellsToMerge)) {
+                continue;
+            }
+            if (numCellsToMerge == numCells && !pregrouped && !(source instanceof SyntheticDataSource)) {
+                try (ExactQuantileOracle oracle = ExactQuantileOracle.forFile(fileName, columnIdx)) {
+                    trueQs.put(numCellsToMerge, oracle.getQuantiles(quantiles));
+                }
+            } else {
+                prefixCells.add(numCellsToMerge);
+            }
+        }
+        if (prefixCells.isEmpty()) {
+            return trueQs;
+        }
+
+        // Copies of the cells up to the largest prefix, which the others share
+        int maxCells = Collections.max(prefixCells);
+        if (!pregrouped && (long) maxCells * cellSize > Integer.MAX_VALUE - 8) {
+            throw new IOException("Too many values to calculate true quantiles: "+(long) maxCells * cellSize);
+        }
+        List<DataSlice> cells = new ArrayList<>(maxCells);
+        source.reset();
+        double[] cell = pregrouped ? null : new double[cellSize];
+        int cellFill = 0;
+        DataSlice chunk;
+        while (cells.size() < maxCells && (chunk = source.next()) != null) {
+            if (pregrouped) {
+                cells.add(new DataSlice(chunk.toArray()));
+                continue;
+            }
+            for (int pos = 0; pos < chunk.length && cells.size() < maxCells; ) {
+                int len = Math.min(cellSize - cellFill, chunk.length - pos);
+                System.arraycopy(chunk.data, chunk.offset + pos, cell, cellFill, len);
+                cellFill += len;
+                pos += len;
+                if (cellFill == cellSize) {
+                    cells.add(new DataSlice(cell));
+                    cell = new double[cellSize];
+                    cellFill = 0;
+                }
+            }
+        }
+        if (cellFill > 0 && cells.size() < maxCells) {
+            cells.add(new DataSlice(cell, 0, cellFill));
+        }
+
+        List<List<DataSlice>> groups = new ArrayList<>(prefixCells.size());
+        for (int numCellsToMerge : prefixCells) {
+            groups.add(cells.subList(0, numCellsToMerge));
+        }
+        List<double[]> groupQs = ExactQuantileOracle.selectGroupQuantiles(
+                groups, quantiles, Runtime.getRuntime().availableProcessors()
+        );
+        for (int i = 0; i < prefixCells.size(); i++) {
+            trueQs.put(prefixCells.get(i), groupQs.get(i));
+        }
+        return trueQs;
+    }
 }
@@ -1,6 +1,6 @@
 import io.CSVOutput;
 import io.DataSource;
-import io.SimpleCSVDataSource;
+import io.ParallelCSVDataSource;
 import sketches.QuantileSketch;
 import sketches.SketchLoader;
 
@@ -22,6 +22,9 @@ public class OutlierBench {
     private List<Double> fractions;
     private double scaleFactor;
     private List<Double> quantiles;
+    // Cutoffs queried directly through the CDF, without inverting quantiles
+    private List<Double> thresholds;
+    private List<Map<String, String>> cdfResults;
 
     public OutlierBench(String confFile) throws IOException {
         RunConfig conf = RunConfig.fromJsonFile(confFile);
@@ -36,16 +39,22 @@ public class OutlierBench {
         fractions = conf.get("fractions");
         scaleFactor = conf.get("scaleFactor");
         quantiles = conf.get("quantiles");
+        thresholds = conf.get("thresholds", new ArrayList<>());
     }
 
     public List<Map<String, String>> run() throws Exception {
-        DataSource source = new SimpleCSVDataSource(fileName, columnIdx);
+        DataSource source = new ParallelCSVDataSource(fileName, columnIdx);
         long startTime = System.currentTimeMillis();
         double[] data = source.get();
         long endTime = System.currentTimeMillis();
         long loadTime = endTime - startTime;
         System.out.println("Loaded Data in: "+loadTime);
         List<Map<String, String>> results = new ArrayList<>();
+        cdfResults = new ArrayList<>();
+        double[] cutoffs = new double[thresholds.size()];
+        for (int i = 0; i < cutoffs.length; i++) {
+            cutoffs[i] = thresholds.get(i);
+        }
 
         int numTests = distances.size();
         for (int di = 0; di < numTests; di++) {
@@ -107,6 +116,34 @@ public class OutlierBench {
                         curResults.put("n", String.format("%d", data.length));
                         results.add(curResults);
                     }
+
+                    if (cutoffs.length == 0) {
+                        continue;
+                    }
+                    startTime = System.nanoTime();
+                    double[] cdf = new double[0];
+                    for (int curSolveTrial = 0; curSolveTrial < numSolveTrials; curSolveTrial++) {
+                        cdf = curSketch.getCDF(cutoffs);
+                    }
+                    endTime = System.nanoTime();
+                    long cdfQueryTime = (endTime - startTime) / numSolveTrials;
+
+                    for (int i = 0; i < cdf.length; i++) {
+                        Map<String, String> curResults = new HashMap<>();
+                        curResults.put("dataset", fileName);
+                        curResults.put("sketch", curSketch.getName());
+                        curResults.put("distance", String.format("%f",curDistance));
+                        curResults.put("fraction", String.format("%f",curFraction));
+                        curResults.put("scaleFactor", String.format("%f",scaleFactor));
+                        curResults.put("threshold", Double.toString(cutoffs[i]));
+                        curResults.put("outlier_rate_estimate", Double.toString(1.0 - cdf[i]));
+                        curResults.put("space", String.format("%d", curSketch.getSize()));
+                        curResults.put("size_param", String.format("%.2f", sParam));
+                        curResults.put("train_time", String.format("%d", trainTime));
+                        curResults.put("query_time", String.format("%d", cdfQueryTime));
+                        curResults.put("n", String.format("%d", data.length));
+                        cdfResults.add(curResults);
+                    }
                 }
             }
         }
@@ -121,5 +158,8 @@ public class OutlierBench {
         CSVOutput output = new CSVOutput();
         output.setAddTimeStamp(false);
         output.writeAllResults(results, bench.testName);
+        if (!bench.cdfResults.isEmpty()) {
+            output.writeAllResults(bench.cdfResults, bench.testName + "_cdf");
+        }
     }
 }
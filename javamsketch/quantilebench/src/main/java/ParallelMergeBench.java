@@ -1,9 +1,12 @@
 import io.*;
+import pipeline.CSVSketchPipeline;
 import sketches.QuantileSketch;
 import sketches.SketchLoader;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.Supplier;
 
 public class ParallelMergeBench {
     private String testName;
@@ -12,6 +15,10 @@ public class ParallelMergeBench {
     private int cellSize;
     private List<Double> cellFractions;
     private boolean pregrouped;
+    // Parse csv files straight into cell sketches on every core
+    private boolean pipelined;
+    // Number of values drawn when fileName names a synthetic distribution
+    private long syntheticSize;
     private List<Integer> numMergeThreads;
     private int numDuplications;
     private Map<String, Integer> numDuplicationsByMethod;
@@ -36,6 +43,8 @@ public class ParallelMergeBench {
         List<Double> defaultCellFractions = Arrays.asList(1.0);
         cellFractions = conf.get("cellFractions", defaultCellFractions);
         pregrouped = conf.get("pregrouped", false);
+        pipelined = conf.get("pipelined", false);
+        syntheticSize = conf.<Number>get("syntheticSize", 1000000000L).longValue();
         numMergeThreads = conf.get("numMergeThreads");
         numDuplications = conf.get("numDuplications", 1);
         numDuplicationsByMethod = conf.get("numDuplicationsByMethod", null);
@@ -62,25 +71,24 @@ public class ParallelMergeBench {
         output.writeAllResults(results, bench.testName);
     }
 
-    private ArrayList<double[]> getCells() throws IOException {
+    private ChunkedDataSource getSource() {
         if (pregrouped) {
-            GroupedCSVDataSource source = new GroupedCSVDataSource(fileName);
-            return source.get();
+            return new GroupedCSVDataSource(fileName);
+        }
+        SyntheticDataSource synthetic = SyntheticDataSource.fromName(fileName, syntheticSize, 0);
+        if (synthetic != null) {
+            return synthetic;
         } else {
-            DataSource source = new SimpleCSVDataSource(fileName, columnIdx);
-            double[] data = source.get();
-            SeqDataGrouper grouper = new SeqDataGrouper(cellSize);
-            return grouper.group(data);
+            return ChunkedDataSource.forFile(fileName, columnIdx);
         }
     }
 
     public List<Map<String, String>> run() throws Exception {
-        System.out.println("Loading Data");
-        long startTime = System.currentTimeMillis();
-        ArrayList<double[]> cells = getCells();
-        long endTime = System.currentTimeMillis();
-        long loadTime = endTime - startTime;
-        System.out.println("Loaded Data in: "+loadTime);
+        // Cells are streamed from the source for every configuration, so
+        // the raw data is never held in memory
+        ChunkedDataSource source = getSource();
+        CellTrainer trainer = new CellTrainer(cellSize, pregrouped);
+        long startTime, endTime;
 
 //        System.in.read();
         List<Map<String, String>> results = new ArrayList<>();
@@ -90,20 +98,34 @@ public class ParallelMergeBench {
         for (String sketchName : methods.keySet()) {
             List<Double> sizeParams = methods.get(sketchName);
             for (double sParam : sizeParams) {
-                startTime = System.nanoTime();
-                int numCells = cells.size();
-                ArrayList<QuantileSketch> cellSketches = new ArrayList<>(numCells);
-                for (int i = 0; i < numCells; i++) {
-                    double[] cellData = cells.get(i);
-                    QuantileSketch curSketch = SketchLoader.load(sketchName);
+                Supplier<QuantileSketch> sFactory = () -> {
+                    QuantileSketch curSketch;
+                    try {
+                        curSketch = SketchLoader.load(sketchName);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
                     curSketch.setCalcError(calcError);
                     curSketch.setSizeParam(sParam);
-                    curSketch.initialize();
-                    curSketch.add(cellData);
-                    cellSketches.add(curSketch);
+                    return curSketch;
+                };
+                ArrayList<QuantileSketch> cellSketches;
+                long trainTime;
+                if (pipelined && !(source instanceof SyntheticDataSource) && !(source instanceof MappedDataSource)) {
+                    // parsing and sketching are fused, so train time includes parsing
+                    CSVSketchPipeline pipeline = new CSVSketchPipeline(fileName, columnIdx);
+                    pipeline.setGrouped(pregrouped);
+                    pipeline.setCellSize(cellSize);
+                    startTime = System.nanoTime();
+                    cellSketches = pipeline.run(sFactory);
+                    endTime = System.nanoTime();
+                    trainTime = endTime - startTime;
+                } else {
+                    cellSketches = trainer.train(source, sFactory);
+                    trainTime = trainer.getTrainTime();
+                    System.out.println("Loaded Data in: "+trainer.getLoadTime() / 1000000);
                 }
-                endTime = System.nanoTime();
-                long trainTime = endTime - startTime;
+                int numCells = cellSketches.size();
 
                 for (int mergeFractionIdx = 0; mergeFractionIdx < cellFractions.size(); mergeFractionIdx++) {
                     double curFraction = cellFractions.get(mergeFractionIdx);
@@ -173,6 +195,7 @@ public class ParallelMergeBench {
             }
         }
 
+        source.close();
         return results;
     }
 }
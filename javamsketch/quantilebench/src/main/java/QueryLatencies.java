@@ -0,0 +1,78 @@
+import msolver.struct.MomentStructLog;
+import sketches.CMomentSketch;
+import sketches.QuantileSketch;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Collects per-query latencies into one LatencyHistogram per dataset,
+ * sketch and size parameter. Optionally keeps the solver inputs of the
+ * slowest moment sketch queries so they can be replayed.
+ */
+public class QueryLatencies {
+    private Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private Map<String, String[]> labels = new HashMap<>();
+
+    private int numSlowest;
+    // min-heap on latency, holding the slowest entries seen so far
+    private PriorityQueue<MomentStructLog.Entry> slowest = new PriorityQueue<>(
+            Comparator.comparingLong((MomentStructLog.Entry e) -> e.solveNanos)
+    );
+
+    public QueryLatencies(int numSlowest) {
+        this.numSlowest = numSlowest;
+    }
+
+    public void record(String dataset, QuantileSketch sketch, double sizeParam, long latency) {
+        String sizeLabel = String.format("%.2f", sizeParam);
+        String key = dataset + "/" + sketch.getName() + "/" + sizeLabel;
+        LatencyHistogram h = histograms.get(key);
+        if (h == null) {
+            h = new LatencyHistogram();
+            histograms.put(key, h);
+            labels.put(key, new String[]{dataset, sketch.getName(), sizeLabel});
+        }
+        h.record(latency);
+
+        if (numSlowest > 0 && sketch instanceof CMomentSketch) {
+            if (slowest.size() < numSlowest || latency > slowest.peek().solveNanos) {
+                CMomentSketch ms = (CMomentSketch) sketch;
+                slowest.add(new MomentStructLog.Entry(ms.getMomentStruct(), ms.getTolerance(), latency));
+                if (slowest.size() > numSlowest) {
+                    slowest.poll();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return one row of latency percentiles in nanoseconds per dataset,
+     * sketch and size parameter
+     */
+    public List<Map<String, String>> getRows() {
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (String key : histograms.keySet()) {
+            String[] label = labels.get(key);
+            Map<String, String> row = histograms.get(key).toRow();
+            row.put("dataset", label[0]);
+            row.put("sketch", label[1]);
+            row.put("size_param", label[2]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Writes the slowest queries, slowest first, in the MomentStructLog format.
+     */
+    public void writeSlowest(String fileName) throws IOException {
+        List<MomentStructLog.Entry> entries = new ArrayList<>(slowest);
+        entries.sort(Comparator.comparingLong((MomentStructLog.Entry e) -> e.solveNanos).reversed());
+        MomentStructLog.write(fileName, entries);
+    }
+
+    public boolean hasSlowest() {
+        return !slowest.isEmpty();
+    }
+}
@@ -0,0 +1,124 @@
+import io.CSVOutput;
+import msolver.ChebyshevMomentSolver2;
+import msolver.struct.MomentStruct;
+import msolver.struct.MomentStructLog;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Reruns solves captured by SlowSolveCapture or the dumpSlowest option of
+ * the benchmark drivers under each solver variant. Variants are written
+ * as "newton:hessianType" or "bfgs:hessianType".
+ */
+public class SolveReplayBench {
+    private String testName;
+    private String logFile;
+    private List<String> variants;
+    private List<Double> quantiles;
+    private int numSolveTrials;
+    private int numWarmupTrials;
+    // Waits for a key press before timing so a profiler can be attached
+    private boolean waitForProfiler;
+    private boolean verbose;
+
+    public SolveReplayBench(String confFile) throws IOException {
+        RunConfig conf = RunConfig.fromJsonFile(confFile);
+        testName = conf.get("testName");
+        logFile = conf.get("logFile");
+        variants = conf.get("variants", Arrays.asList("newton:0", "newton:2", "bfgs:3"));
+        quantiles = conf.get("quantiles", Arrays.asList(0.01, 0.1, 0.5, 0.9, 0.99));
+        numSolveTrials = conf.get("numSolveTrials", 10);
+        numWarmupTrials = conf.get("numWarmupTrials", 2);
+        waitForProfiler = conf.get("waitForProfiler", false);
+        verbose = conf.get("verbose", false);
+    }
+
+    private ChebyshevMomentSolver2 solve(MomentStructLog.Entry e, String variant) throws IOException {
+        String[] parts = variant.split(":");
+        MomentStruct ms = e.ms;
+        ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                ms.min, ms.max, ms.powerSums,
+                ms.logMin, ms.logMax, ms.logSums
+        );
+        if (parts[0].equals("bfgs")) {
+            solver.setSolverType(1);
+        } else if (!parts[0].equals("newton")) {
+            throw new IOException("Invalid solver variant: "+variant);
+        }
+        if (parts.length > 1) {
+            solver.setHessianType(Integer.parseInt(parts[1]));
+        }
+        solver.setVerbose(verbose);
+        solver.solve(e.tolerance);
+        return solver;
+    }
+
+    public List<Map<String, String>> run() throws Exception {
+        List<MomentStructLog.Entry> entries = MomentStructLog.read(logFile);
+        System.out.println("Replaying "+entries.size()+" solves");
+        double[] ps = new double[quantiles.size()];
+        for (int i = 0; i < ps.length; i++) {
+            ps[i] = quantiles.get(i);
+        }
+
+        if (waitForProfiler) {
+            System.out.println("Press enter to start");
+            System.in.read();
+        }
+
+        List<Map<String, String>> results = new ArrayList<>();
+        for (int ei = 0; ei < entries.size(); ei++) {
+            MomentStructLog.Entry e = entries.get(ei);
+            // quantiles from the first variant, which the others are compared to
+            double[] baseQs = null;
+            for (String variant : variants) {
+                System.out.println(ei + ":" + variant);
+                ChebyshevMomentSolver2 solver = null;
+                for (int i = 0; i < numWarmupTrials; i++) {
+                    solve(e, variant);
+                }
+                long startTime = System.nanoTime();
+                for (int i = 0; i < numSolveTrials; i++) {
+                    solver = solve(e, variant);
+                }
+                long endTime = System.nanoTime();
+                long solveTime = (endTime - startTime) / numSolveTrials;
+
+                double[] qs = solver.estimateQuantiles(ps);
+                if (baseQs == null) {
+                    baseQs = qs;
+                }
+                double maxDiff = 0.0;
+                for (int i = 0; i < qs.length; i++) {
+                    maxDiff = Math.max(maxDiff, Math.abs(qs[i] - baseQs[i]));
+                }
+
+                Map<String, String> curResults = new HashMap<>();
+                curResults.put("entry", String.format("%d", ei));
+                curResults.put("variant", variant);
+                curResults.put("k", String.format("%d", e.ms.powerSums.length));
+                curResults.put("k_log", String.format("%d", e.ms.logSums.length));
+                curResults.put("original_time", String.format("%d", e.solveNanos));
+                curResults.put("solve_time", String.format("%d", solveTime));
+                curResults.put("steps", String.format("%d", solver.getOptimizer().getStepCount()));
+                curResults.put("func_evals", String.format("%d", solver.getCumFuncEvals()));
+                curResults.put("converged", Boolean.toString(solver.isConverged()));
+                curResults.put("standard_basis", Boolean.toString(solver.isUseStandardBasis()));
+                curResults.put("max_quantile_diff", Double.toString(maxDiff));
+                results.add(curResults);
+            }
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String confFile = args[0];
+        SolveReplayBench bench = new SolveReplayBench(confFile);
+
+        List<Map<String, String>> results = bench.run();
+        CSVOutput output = new CSVOutput();
+        output.setAddTimeStamp(false);
+        output.writeAllResults(results, bench.testName);
+    }
+}
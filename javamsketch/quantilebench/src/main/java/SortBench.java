@@ -1,6 +1,6 @@
 import io.CSVOutput;
 import io.DataSource;
-import io.SimpleCSVDataSource;
+import io.ParallelCSVDataSource;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import sketches.QuantileSketch;
 import sketches.SketchLoader;
@@ -42,7 +42,7 @@ public class SortBench {
     }
 
     public List<Map<String, String>> run() throws Exception {
-        DataSource source = new SimpleCSVDataSource(fileName, columnIdx);
+        DataSource source = new ParallelCSVDataSource(fileName, columnIdx);
         long startTime = System.currentTimeMillis();
         double[] data = source.get();
         long endTime = System.currentTimeMillis();
@@ -128,6 +128,27 @@ public class GKSketch {
         return tuples.get(n-1).v;
     }
 
+    /**
+     * @return estimated fraction of values less than or equal to x, midway
+     * between the least rank of the last tuple at or below x and the
+     * greatest rank of the first tuple above it
+     */
+    public double cdf(double x) {
+        if (tuples.isEmpty()) {
+            return 0.0;
+        }
+        int minRank = 0;
+        int maxRank = nSize;
+        for (Tuple curTuple : tuples) {
+            if (curTuple.v > x) {
+                maxRank = minRank + curTuple.g + curTuple.del - 1;
+                break;
+            }
+            minRank += curTuple.g;
+        }
+        return (minRank + maxRank) / 2.0 / nSize;
+    }
+
     @Override
     public String toString() {
         return tuples.toString();
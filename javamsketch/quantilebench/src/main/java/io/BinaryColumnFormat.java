@@ -0,0 +1,144 @@
+package io;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Single column of doubles stored as a 16 byte header, the magic bytes
+ * followed by the number of values, and then the values as little-endian
+ * doubles. Files can be mapped directly by {@link MappedDataSource}.
+ */
+public class BinaryColumnFormat {
+    public static final long MAGIC = 0x314C4F434B534D4DL; // "MMSKCOL1"
+    public static final int HEADER_SIZE = 2 * Long.BYTES;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    public static void write(String fileName, double[] data) throws IOException {
+        write(fileName, data, 0, data.length);
+    }
+
+    public static void write(String fileName, double[] data, int off, int len) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE * Double.BYTES);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            writeHeader(channel, len);
+            for (int i = 0; i < len; i++) {
+                if (!buf.hasRemaining()) {
+                    flush(channel, buf);
+                }
+                buf.putDouble(data[off + i]);
+            }
+            flush(channel, buf);
+        }
+    }
+
+    /**
+     * Streams one column of a csv file into the binary format without
+     * holding the column in memory.
+     * @return number of values written
+     */
+    public static long convertCSV(
+            String csvFile, int column, boolean hasHeader, String outFile
+    ) throws IOException {
+        long count = 0;
+        try (
+                BufferedReader bf = new BufferedReader(new FileReader(csvFile));
+                RandomAccessFile file = new RandomAccessFile(outFile, "rw")
+        ) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE * Double.BYTES);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            // count is filled in once the whole file has been read
+            writeHeader(channel, 0);
+
+            if (hasHeader) {
+                bf.readLine();
+            }
+            String curLine;
+            while ((curLine = bf.readLine()) != null) {
+                int colCount = 0;
+                int startIdx = 0;
+                int nextIdx = -1;
+                while (colCount <= column) {
+                    startIdx = nextIdx+1;
+                    nextIdx = curLine.indexOf(',', startIdx);
+                    colCount++;
+                    if (nextIdx == -1) {
+                        nextIdx = curLine.length();
+                        break;
+                    }
+                }
+                if (!buf.hasRemaining()) {
+                    flush(channel, buf);
+                }
+                buf.putDouble(Double.parseDouble(curLine.substring(startIdx, nextIdx)));
+                count++;
+            }
+            flush(channel, buf);
+
+            channel.position(0);
+            writeHeader(channel, count);
+        }
+        return count;
+    }
+
+    /**
+     * @return number of values in the file, after checking the header
+     */
+    public static long readCount(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Truncated binary column header");
+            }
+        }
+        header.flip();
+        if (header.getLong() != MAGIC) {
+            throw new IOException("Not a binary column file");
+        }
+        long count = header.getLong();
+        if (channel.size() < HEADER_SIZE + count * Double.BYTES) {
+            throw new IOException("Binary column file is shorter than its header claims");
+        }
+        return count;
+    }
+
+    private static void writeHeader(FileChannel channel, long count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(MAGIC);
+        header.putLong(count);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String csvFile = args[0];
+        int column = Integer.parseInt(args[1]);
+        String outFile = args[2];
+        long startTime = System.currentTimeMillis();
+        long count = convertCSV(csvFile, column, true, outFile);
+        long endTime = System.currentTimeMillis();
+        System.out.println("Converted "+count+" values in: "+(endTime - startTime));
+    }
+}
@@ -0,0 +1,32 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams a dataset in chunks so that it never has to fit in memory at once.
+ * The array behind each returned slice may be reused by the following call
+ * to next, so each chunk should be consumed before asking for another.
+ */
+public interface ChunkedDataSource extends Closeable {
+    /**
+     * @return the next chunk, or null once the data is exhausted
+     */
+    DataSlice next() throws IOException;
+
+    /**
+     * Starts over from the first chunk.
+     */
+    void reset() throws IOException;
+
+    /**
+     * @return a mapped source for binary column files, otherwise a csv source
+     */
+    static ChunkedDataSource forFile(String fileName, int column) {
+        if (fileName.endsWith(".bin")) {
+            return new MappedDataSource(fileName);
+        } else {
+            return new SimpleCSVDataSource(fileName, column);
+        }
+    }
+}
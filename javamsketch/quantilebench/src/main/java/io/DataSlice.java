@@ -0,0 +1,31 @@
+package io;
+
+import java.util.Arrays;
+
+/**
+ * View of a contiguous range of a shared array, so that cells can be
+ * handed to sketches without copying their values.
+ */
+public class DataSlice {
+    public final double[] data;
+    public final int offset;
+    public final int length;
+
+    public DataSlice(double[] data) {
+        this(data, 0, data.length);
+    }
+
+    public DataSlice(double[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public double get(int i) {
+        return data[offset + i];
+    }
+
+    public double[] toArray() {
+        return Arrays.copyOfRange(data, offset, offset + length);
+    }
+}
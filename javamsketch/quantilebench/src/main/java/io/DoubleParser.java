@@ -0,0 +1,137 @@
+package io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal doubles straight from bytes. Values with at most 15
+ * significant digits and small exponents, which covers most csv data, are
+ * converted exactly with a single multiply or divide (Clinger's fast path)
+ * without allocating. Anything else falls back to Double.parseDouble.
+ */
+public class DoubleParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+            1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * @return the double written in buf[start, end), ignoring surrounding
+     * whitespace
+     */
+    public static double parse(ByteBuffer buf, int start, int end) {
+        while (start < end && isWhitespace(buf.get(start))) {
+            start++;
+        }
+        while (end > start && isWhitespace(buf.get(end - 1))) {
+            end--;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int numDigits = 0;
+        int exponent = 0;
+        boolean sawDigit = false;
+        while (i < end) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            sawDigit = true;
+            if (mantissa != 0 || b != '0') {
+                if (numDigits >= 15) {
+                    return slowParse(buf, start, end);
+                }
+                mantissa = 10 * mantissa + (b - '0');
+                numDigits++;
+            }
+            i++;
+        }
+        if (i < end && buf.get(i) == '.') {
+            i++;
+            while (i < end) {
+                byte b = buf.get(i);
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                sawDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    if (numDigits >= 15) {
+                        return slowParse(buf, start, end);
+                    }
+                    mantissa = 10 * mantissa + (b - '0');
+                    numDigits++;
+                }
+                exponent--;
+                i++;
+            }
+        }
+        if (!sawDigit) {
+            return slowParse(buf, start, end);
+        }
+        if (i < end && (buf.get(i) == 'e' || buf.get(i) == 'E')) {
+            i++;
+            boolean negativeExp = false;
+            if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                negativeExp = buf.get(i) == '-';
+                i++;
+            }
+            int expStart = i;
+            int expValue = 0;
+            while (i < end) {
+                byte b = buf.get(i);
+                if (b < '0' || b > '9' || expValue > 10000) {
+                    break;
+                }
+                expValue = 10 * expValue + (b - '0');
+                i++;
+            }
+            if (i == expStart) {
+                return slowParse(buf, start, end);
+            }
+            exponent += negativeExp ? -expValue : expValue;
+        }
+        if (i != end) {
+            return slowParse(buf, start, end);
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exponent >= 0 && exponent <= 22) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && exponent >= -22) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else if (exponent > 22 && exponent <= 22 + 15) {
+            // shift part of the exponent into the mantissa while it stays exact
+            double shifted = mantissa * POWERS_OF_TEN[exponent - 22];
+            if (shifted >= MAX_EXACT_MANTISSA) {
+                return slowParse(buf, start, end);
+            }
+            value = shifted * POWERS_OF_TEN[22];
+        } else {
+            return slowParse(buf, start, end);
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static double slowParse(ByteBuffer buf, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(start + i);
+        }
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,301 @@
+package io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exact quantiles of a dataset column, used as ground truth by the accuracy
+ * benchmarks. The column is sorted once and cached next to the data in the
+ * binary column format, so later runs only map the sorted copy and every
+ * quantile is a single lookup. Subsets of the data such as groups or cube
+ * cells are answered with introselect instead, in parallel across subsets.
+ * Quantiles follow the R_1 definition used by QuantileUtil.getTrueQuantiles.
+ */
+public class ExactQuantileOracle implements Closeable {
+    // Ranges at most this long are sorted rather than partitioned further
+    private static final int SORT_THRESHOLD = 32;
+
+    private MappedDataSource sorted;
+    private long n;
+    private double[] buffer = new double[1];
+
+    /**
+     * @param sortedFile sorted values in the binary column format
+     */
+    public ExactQuantileOracle(String sortedFile) throws IOException {
+        this.sorted = new MappedDataSource(sortedFile);
+        this.n = sorted.size();
+    }
+
+    public static String getCacheFile(String fileName, int column) {
+        if (fileName.endsWith(".bin")) {
+            return fileName.substring(0, fileName.length() - 4) + ".sorted.bin";
+        } else {
+            return fileName + ".col" + column + ".sorted.bin";
+        }
+    }
+
+    /**
+     * Maps the sorted copy of a csv column or binary column file, sorting
+     * the column first if there is no cached copy newer than the data.
+     */
+    public static ExactQuantileOracle forFile(String fileName, int column) throws IOException {
+        String cacheFile = getCacheFile(fileName, column);
+        File cache = new File(cacheFile);
+        if (!cache.exists() || cache.lastModified() < new File(fileName).lastModified()) {
+            double[] data;
+            if (fileName.endsWith(".bin")) {
+                MappedDataSource source = new MappedDataSource(fileName);
+                data = source.get();
+                source.close();
+            } else {
+                data = new ParallelCSVDataSource(fileName, column).get();
+            }
+            Arrays.parallelSort(data);
+            writeCache(cacheFile, data);
+        }
+        return new ExactQuantileOracle(cacheFile);
+    }
+
+    /**
+     * Sorts a copy of data into cacheFile and maps it.
+     */
+    public static ExactQuantileOracle forData(double[] data, String cacheFile) throws IOException {
+        double[] sortedData = Arrays.copyOf(data, data.length);
+        Arrays.parallelSort(sortedData);
+        writeCache(cacheFile, sortedData);
+        return new ExactQuantileOracle(cacheFile);
+    }
+
+    /**
+     * Writes to a temporary file next to cacheFile and renames it into
+     * place, so an interrupted write never leaves a truncated cache behind
+     * and concurrent runs never map a partly written one.
+     */
+    private static void writeCache(String cacheFile, double[] sortedData) throws IOException {
+        Path target = Paths.get(cacheFile).toAbsolutePath();
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            BinaryColumnFormat.write(tmp.toString(), sortedData);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public long size() {
+        return n;
+    }
+
+    /**
+     * @param rank 0-based position in sorted order
+     */
+    public double getValue(long rank) throws IOException {
+        sorted.read(rank, buffer, 0, 1);
+        return buffer[0];
+    }
+
+    public double[] getQuantiles(List<Double> ps) throws IOException {
+        double[] qs = new double[ps.size()];
+        for (int i = 0; i < qs.length; i++) {
+            qs[i] = n == 0 ? Double.NaN : getValue(getRank(ps.get(i), n));
+        }
+        return qs;
+    }
+
+    /**
+     * @return fraction of the values less than or equal to each x
+     */
+    public double[] getCDF(double[] xs) throws IOException {
+        double[] cdf = new double[xs.length];
+        if (n == 0) {
+            return cdf;
+        }
+        for (int i = 0; i < xs.length; i++) {
+            // first index with a value greater than x
+            long lo = 0;
+            long hi = n;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (getValue(mid) <= xs[i]) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            cdf[i] = (double) lo / n;
+        }
+        return cdf;
+    }
+
+    @Override
+    public void close() {
+        sorted.close();
+    }
+
+    /**
+     * @return 0-based rank of the p quantile of n values, computed the same
+     * way as the commons-math Percentile with R_1 estimation
+     */
+    public static long getRank(double p, long n) {
+        // Percentile takes p as a percentage and divides it back down
+        p = (p * 100) / 100;
+        if (p <= 0) {
+            return 0;
+        } else if (p >= 1) {
+            return n - 1;
+        }
+        long rank = (long) Math.ceil((n * p + 0.5) - 0.5);
+        return Math.min(Math.max(rank, 1), n) - 1;
+    }
+
+    /**
+     * Exact quantiles of the values in a subset of cells, which are copied
+     * so the cells themselves are left untouched.
+     */
+    public static double[] selectQuantiles(List<DataSlice> cells, List<Double> ps) {
+        long len = 0;
+        for (DataSlice cell : cells) {
+            len += cell.length;
+        }
+        if (len > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many values to select from: "+len);
+        }
+        double[] values = new double[(int) len];
+        int pos = 0;
+        for (DataSlice cell : cells) {
+            System.arraycopy(cell.data, cell.offset, values, pos, cell.length);
+            pos += cell.length;
+        }
+        return selectInPlace(values, ps);
+    }
+
+    /**
+     * Exact quantiles of each subset of cells, with the subsets spread over
+     * numThreads threads.
+     */
+    public static List<double[]> selectGroupQuantiles(
+            List<List<DataSlice>> groups,
+            List<Double> ps,
+            int numThreads
+    ) throws InterruptedException {
+        double[][] results = new double[groups.size()][];
+        AtomicInteger nextGroup = new AtomicInteger();
+        numThreads = Math.max(1, Math.min(numThreads, groups.size()));
+        CountDownLatch doneSignal = new CountDownLatch(numThreads);
+        // first exception thrown by any of the selection threads
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < numThreads; t++) {
+            Runnable selectRunnable = () -> {
+                try {
+                    int i;
+                    while ((i = nextGroup.getAndIncrement()) < results.length) {
+                        results[i] = selectQuantiles(groups.get(i), ps);
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    doneSignal.countDown();
+                }
+            };
+            Thread selectThread = new Thread(selectRunnable);
+            selectThread.start();
+        }
+        doneSignal.await();
+        if (failure.get() != null) {
+            throw new RuntimeException("Failed to select group quantiles", failure.get());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Exact quantiles of values, which are partially reordered.
+     */
+    public static double[] selectInPlace(double[] values, List<Double> ps) {
+        int n = values.length;
+        double[] qs = new double[ps.size()];
+        if (n == 0) {
+            Arrays.fill(qs, Double.NaN);
+            return qs;
+        }
+        int[] ranks = new int[qs.length];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = (int) getRank(ps.get(i), n);
+        }
+        int[] sortedRanks = Arrays.stream(ranks).sorted().distinct().toArray();
+        int maxDepth = 2 * (32 - Integer.numberOfLeadingZeros(n));
+        multiSelect(values, 0, n, sortedRanks, 0, sortedRanks.length, maxDepth);
+        for (int i = 0; i < qs.length; i++) {
+            qs[i] = values[ranks[i]];
+        }
+        return qs;
+    }
+
+    /**
+     * Moves the values at every rank in ranks[rLo, rHi) into their sorted
+     * position within a[lo, hi). Partitions around a median of three and
+     * falls back to sorting once depth runs out, so badly chosen pivots
+     * cannot make it quadratic.
+     */
+    private static void multiSelect(
+            double[] a, int lo, int hi,
+            int[] ranks, int rLo, int rHi,
+            int depth
+    ) {
+        while (rLo < rHi) {
+            if (hi - lo <= SORT_THRESHOLD || depth == 0) {
+                Arrays.sort(a, lo, hi);
+                return;
+            }
+            depth--;
+            double pivot = medianOf3(a[lo], a[(lo + hi) >>> 1], a[hi - 1]);
+
+            // [lo, lt) < pivot, [lt, gt) == pivot, [gt, hi) > pivot
+            int lt = lo;
+            int gt = hi;
+            int i = lo;
+            while (i < gt) {
+                double v = a[i];
+                if (v < pivot) {
+                    a[i++] = a[lt];
+                    a[lt++] = v;
+                } else if (v > pivot) {
+                    a[i] = a[--gt];
+                    a[gt] = v;
+                } else {
+                    i++;
+                }
+            }
+
+            int leftEnd = rLo;
+            while (leftEnd < rHi && ranks[leftEnd] < lt) {
+                leftEnd++;
+            }
+            int rightStart = leftEnd;
+            while (rightStart < rHi && ranks[rightStart] < gt) {
+                rightStart++;
+            }
+            multiSelect(a, lo, lt, ranks, rLo, leftEnd, depth);
+            lo = gt;
+            rLo = rightStart;
+        }
+    }
+
+    private static double medianOf3(double x, double y, double z) {
+        if (x < y) {
+            return y < z ? y : Math.max(x, z);
+        } else {
+            return x < z ? x : Math.max(y, z);
+        }
+    }
+}
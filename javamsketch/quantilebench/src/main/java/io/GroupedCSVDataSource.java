@@ -5,11 +5,20 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 
-public class GroupedCSVDataSource {
+/**
+ * Each line holds one pre-grouped cell, with its values between brackets.
+ * As a ChunkedDataSource, every chunk is one cell.
+ */
+public class GroupedCSVDataSource implements ChunkedDataSource {
     public String fileName;
     public int limit = Integer.MAX_VALUE;
     public boolean hasHeader = true;
 
+    // Streaming state for next()
+    private BufferedReader reader;
+    private double[] chunk;
+    private int numRead;
+
     public GroupedCSVDataSource(String fileName) {
         this.fileName = fileName;
     }
@@ -22,6 +31,10 @@ public class GroupedCSVDataSource {
         this.limit = limit;
     }
 
+    private static String[] parseGroup(String curLine) {
+        return curLine.substring(curLine.indexOf('[')+1, curLine.lastIndexOf(']')).split(",");
+    }
+
     public ArrayList<double[]> get() throws IOException {
         BufferedReader bf = new BufferedReader(new FileReader(fileName));
         if (hasHeader) {
@@ -33,14 +46,56 @@ public class GroupedCSVDataSource {
             if (curLine == null) {
                 break;
             }
-            String[] rawGroup = curLine.substring(curLine.indexOf('[')+1, curLine.lastIndexOf(']')).split(",");
+            String[] rawGroup = parseGroup(curLine);
             double[] group = new double[rawGroup.length];
             for (int j = 0; j < group.length; j++) {
                 group[j] = Double.parseDouble(rawGroup[j]);
             }
             vals.add(group);
         }
+        bf.close();
 
         return vals;
     }
+
+    @Override
+    public DataSlice next() throws IOException {
+        if (reader == null) {
+            reader = new BufferedReader(new FileReader(fileName));
+            if (hasHeader) {
+                reader.readLine();
+            }
+            chunk = new double[16];
+            numRead = 0;
+        }
+        if (numRead >= limit) {
+            return null;
+        }
+        String curLine = reader.readLine();
+        if (curLine == null) {
+            return null;
+        }
+        numRead++;
+        String[] rawGroup = parseGroup(curLine);
+        if (rawGroup.length > chunk.length) {
+            chunk = new double[Math.max(rawGroup.length, 2 * chunk.length)];
+        }
+        for (int j = 0; j < rawGroup.length; j++) {
+            chunk[j] = Double.parseDouble(rawGroup[j]);
+        }
+        return new DataSlice(chunk, 0, rawGroup.length);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
 }
@@ -0,0 +1,144 @@
+package io;
+
+import sketches.QuantileSketch;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a {@link BinaryColumnFormat} file through memory mapped windows, so
+ * columns larger than the heap can be read without loading them.
+ */
+public class MappedDataSource implements DataSource, ChunkedDataSource {
+    // Largest window that fits in a single MappedByteBuffer, in values
+    public static final int MAX_WINDOW_SIZE = 1 << 27;
+
+    public String fileName;
+    private int windowSize = MAX_WINDOW_SIZE;
+    private int chunkSize = 1 << 16;
+
+    private long count;
+    private DoubleBuffer[] windows;
+
+    // Streaming state for next()
+    private long position;
+    private double[] chunk;
+
+    public MappedDataSource(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = Math.min(windowSize, MAX_WINDOW_SIZE);
+        this.windows = null;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    private void open() throws IOException {
+        if (windows != null) {
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            count = BinaryColumnFormat.readCount(channel);
+            int numWindows = (int)((count + windowSize - 1) / windowSize);
+            windows = new DoubleBuffer[numWindows];
+            for (int w = 0; w < numWindows; w++) {
+                long start = (long)w * windowSize;
+                long len = Math.min(windowSize, count - start);
+                // mappings stay valid after the channel is closed
+                MappedByteBuffer mapped = channel.map(
+                        FileChannel.MapMode.READ_ONLY,
+                        BinaryColumnFormat.HEADER_SIZE + start * Double.BYTES,
+                        len * Double.BYTES
+                );
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                windows[w] = mapped.asDoubleBuffer();
+            }
+        }
+    }
+
+    public long size() throws IOException {
+        open();
+        return count;
+    }
+
+    /**
+     * Copies len values starting at index into dest.
+     */
+    public void read(long index, double[] dest, int off, int len) throws IOException {
+        open();
+        while (len > 0) {
+            int w = (int)(index / windowSize);
+            int pos = (int)(index % windowSize);
+            DoubleBuffer window = windows[w].duplicate();
+            int curLen = Math.min(len, window.limit() - pos);
+            window.position(pos);
+            window.get(dest, off, curLen);
+            index += curLen;
+            off += curLen;
+            len -= curLen;
+        }
+    }
+
+    /**
+     * Feeds every value to the sketch through a single reused chunk buffer.
+     */
+    public void addTo(QuantileSketch sketch) throws IOException {
+        long n = size();
+        double[] buffer = new double[(int)Math.min(chunkSize, Math.max(n, 1))];
+        for (long start = 0; start < n; start += buffer.length) {
+            int len = (int)Math.min(buffer.length, n - start);
+            read(start, buffer, 0, len);
+            sketch.add(buffer, 0, len);
+        }
+    }
+
+    @Override
+    public DataSlice next() throws IOException {
+        long n = size();
+        if (position >= n) {
+            return null;
+        }
+        if (chunk == null || chunk.length != chunkSize) {
+            chunk = new double[chunkSize];
+        }
+        int len = (int)Math.min(chunk.length, n - position);
+        read(position, chunk, 0, len);
+        position += len;
+        return new DataSlice(chunk, 0, len);
+    }
+
+    @Override
+    public void reset() {
+        position = 0;
+    }
+
+    /**
+     * Drops the mappings, which are released once they are garbage collected.
+     */
+    @Override
+    public void close() {
+        windows = null;
+        chunk = null;
+        position = 0;
+    }
+
+    @Override
+    public double[] get() throws IOException {
+        long n = size();
+        if (n > Integer.MAX_VALUE - 8) {
+            throw new IOException("Column has too many values for an array: "+n);
+        }
+        double[] data = new double[(int)n];
+        read(0, data, 0, data.length);
+        return data;
+    }
+}
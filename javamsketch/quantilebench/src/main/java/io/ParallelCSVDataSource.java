@@ -0,0 +1,196 @@
+package io;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Loads one csv column using every core. The file is split into byte ranges
+ * that start at line boundaries, each range is mapped and scanned once to
+ * count its rows and then parsed with {@link DoubleParser} directly into its
+ * slice of the output array.
+ */
+public class ParallelCSVDataSource implements DataSource {
+    // Ranges are mapped as a single buffer, so they stay well under 2GB
+    private static final long MAX_RANGE_SIZE = 1L << 30;
+
+    public String fileName;
+    public int column;
+    public boolean hasHeader = true;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    private volatile Throwable failure;
+
+    public ParallelCSVDataSource(String fileName, int column) {
+        this.fileName = fileName;
+        this.column = column;
+    }
+
+    public void setHasHeader(boolean flag) {
+        this.hasHeader = flag;
+    }
+
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public double[] get() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            long[] bounds = getRangeBounds(channel);
+            int numRanges = bounds.length - 1;
+            MappedByteBuffer[] ranges = new MappedByteBuffer[numRanges];
+            for (int r = 0; r < numRanges; r++) {
+                ranges[r] = channel.map(
+                        FileChannel.MapMode.READ_ONLY, bounds[r], bounds[r+1] - bounds[r]
+                );
+            }
+
+            int[] rowCounts = new int[numRanges];
+            runRanges(numRanges, r -> rowCounts[r] = parseRange(ranges[r], null, 0));
+
+            int[] offsets = new int[numRanges];
+            long totalRows = 0;
+            for (int r = 0; r < numRanges; r++) {
+                offsets[r] = (int) totalRows;
+                totalRows += rowCounts[r];
+            }
+            if (totalRows > Integer.MAX_VALUE - 8) {
+                throw new IOException("Column has too many values for an array: "+totalRows);
+            }
+            double[] data = new double[(int) totalRows];
+            runRanges(numRanges, r -> parseRange(ranges[r], data, offsets[r]));
+            return data;
+        }
+    }
+
+    /**
+     * @return start of every range followed by the end of the file, with
+     * every range starting at the beginning of a line
+     */
+    private long[] getRangeBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long start = hasHeader ? nextLineStart(channel, 0) : 0;
+        int numRanges = (int) Math.max(
+                numThreads,
+                (size - start + MAX_RANGE_SIZE - 1) / MAX_RANGE_SIZE
+        );
+        List<Long> bounds = new ArrayList<>(numRanges + 1);
+        bounds.add(start);
+        for (int r = 1; r < numRanges; r++) {
+            long pos = nextLineStart(channel, start + (size - start) * r / numRanges);
+            if (pos > bounds.get(bounds.size() - 1) && pos < size) {
+                bounds.add(pos);
+            }
+        }
+        bounds.add(Math.max(size, start));
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return position just after the first newline at or after pos
+     */
+    private static long nextLineStart(FileChannel channel, long pos) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long size = channel.size();
+        while (pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * Parses the column from every non-empty line of the range into
+     * out[offset...], or only counts the lines if out is null.
+     * @return number of rows in the range
+     */
+    private int parseRange(ByteBuffer range, double[] out, int offset) {
+        int end = range.limit();
+        int numRows = 0;
+        int lineStart = 0;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && range.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && range.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd > lineStart) {
+                if (out != null) {
+                    int fieldStart = lineStart;
+                    for (int c = 0; c < column && fieldStart < contentEnd; c++) {
+                        while (fieldStart < contentEnd && range.get(fieldStart) != ',') {
+                            fieldStart++;
+                        }
+                        fieldStart++;
+                    }
+                    int fieldEnd = Math.min(fieldStart, contentEnd);
+                    while (fieldEnd < contentEnd && range.get(fieldEnd) != ',') {
+                        fieldEnd++;
+                    }
+                    out[offset + numRows] = DoubleParser.parse(range, Math.min(fieldStart, contentEnd), fieldEnd);
+                }
+                numRows++;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return numRows;
+    }
+
+    private interface RangeTask {
+        void run(int range);
+    }
+
+    private void runRanges(int numRanges, RangeTask task) throws IOException {
+        failure = null;
+        int actualThreads = Math.max(1, Math.min(numThreads, numRanges));
+        final CountDownLatch doneSignal = new CountDownLatch(actualThreads);
+        for (int threadNum = 0; threadNum < actualThreads; threadNum++) {
+            final int startIndex = (numRanges * threadNum) / actualThreads;
+            final int endIndex = (numRanges * (threadNum + 1)) / actualThreads;
+            Runnable rangeRunnable = () -> {
+                try {
+                    for (int r = startIndex; r < endIndex; r++) {
+                        task.run(r);
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    doneSignal.countDown();
+                }
+            };
+            Thread rangeThread = new Thread(rangeRunnable);
+            rangeThread.start();
+        }
+        try {
+            doneSignal.await();
+        } catch (InterruptedException ex) {
+            throw new IOException(ex);
+        }
+        if (failure != null) {
+            throw new IOException("Failed to parse "+fileName, failure);
+        }
+    }
+}
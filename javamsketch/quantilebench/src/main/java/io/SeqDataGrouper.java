@@ -27,4 +27,21 @@ public class SeqDataGrouper implements DataGrouper {
         }
         return cells;
     }
+
+    /**
+     * Same cells as group, as views into data rather than copies.
+     */
+    public ArrayList<DataSlice> groupSlices(double[] data) {
+        int n = data.length;
+        int numCells = (int)Math.ceil(n*1.0/cellSize);
+        ArrayList<DataSlice> cells = new ArrayList<>(numCells);
+        for (int i = 0; i < numCells; i++) {
+            int startIdx = i*cellSize;
+            int endIdx = Math.min(
+                    (i+1)*cellSize, n
+            );
+            cells.add(new DataSlice(data, startIdx, endIdx - startIdx));
+        }
+        return cells;
+    }
 }
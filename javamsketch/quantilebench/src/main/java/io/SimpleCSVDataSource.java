@@ -5,11 +5,17 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 
-public class SimpleCSVDataSource implements DataSource{
+public class SimpleCSVDataSource implements DataSource, ChunkedDataSource {
     public String fileName;
     public int column;
     public int limit = Integer.MAX_VALUE;
     public boolean hasHeader = true;
+    public int chunkSize = 1 << 16;
+
+    // Streaming state for next()
+    private BufferedReader reader;
+    private double[] chunk;
+    private int numRead;
 
     public SimpleCSVDataSource(String fileName, int column) {
         this.fileName = fileName;
@@ -24,6 +30,26 @@ public class SimpleCSVDataSource implements DataSource{
         this.limit = limit;
     }
 
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    private double parseColumn(String curLine) {
+        int colCount = 0;
+        int startIdx = 0;
+        int nextIdx = -1;
+        while (colCount <= column) {
+            startIdx = nextIdx+1;
+            nextIdx = curLine.indexOf(',', startIdx);
+            colCount++;
+            if (nextIdx == -1) {
+                nextIdx = curLine.length();
+                break;
+            }
+        }
+        return Double.parseDouble(curLine.substring(startIdx, nextIdx));
+    }
+
     @Override
     public double[] get() throws IOException {
         BufferedReader bf = new BufferedReader(new FileReader(fileName));
@@ -36,20 +62,9 @@ public class SimpleCSVDataSource implements DataSource{
             if (curLine == null) {
                 break;
             }
-            int colCount = 0;
-            int startIdx = 0;
-            int nextIdx = -1;
-            while (colCount <= column) {
-                startIdx = nextIdx+1;
-                nextIdx = curLine.indexOf(',', startIdx);
-                colCount++;
-                if (nextIdx == -1) {
-                    nextIdx = curLine.length();
-                    break;
-                }
-            }
-            vals.add(Double.parseDouble(curLine.substring(startIdx, nextIdx)));
+            vals.add(parseColumn(curLine));
         }
+        bf.close();
 
         double[] uVals = new double[vals.size()];
         for (int i = 0; i < uVals.length; i++) {
@@ -57,4 +72,42 @@ public class SimpleCSVDataSource implements DataSource{
         }
         return uVals;
     }
+
+    @Override
+    public DataSlice next() throws IOException {
+        if (reader == null) {
+            reader = new BufferedReader(new FileReader(fileName));
+            if (hasHeader) {
+                reader.readLine();
+            }
+            chunk = new double[chunkSize];
+            numRead = 0;
+        }
+        int len = 0;
+        while (len < chunk.length && numRead < limit) {
+            String curLine = reader.readLine();
+            if (curLine == null) {
+                break;
+            }
+            chunk[len++] = parseColumn(curLine);
+            numRead++;
+        }
+        if (len == 0) {
+            return null;
+        }
+        return new DataSlice(chunk, 0, len);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
 }
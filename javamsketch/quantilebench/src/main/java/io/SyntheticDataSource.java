@@ -0,0 +1,461 @@
+package io;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Values drawn from a known distribution. The data is cut into blocks that
+ * each get their own SplittableRandom derived from the seed and the block
+ * index, so blocks can be generated in any order or in parallel and the
+ * values only depend on the seed and block size.
+ * Since the distribution is known, reference quantiles come from its
+ * inverse CDF rather than from sorting the data.
+ */
+public abstract class SyntheticDataSource implements DataSource, ChunkedDataSource {
+    private static final NormalDistribution standardNormal = new NormalDistribution(0, 1);
+
+    protected long n;
+    protected long seed;
+    private int blockSize = 1 << 16;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    private long nextBlock;
+    private double[] chunk;
+
+    public SyntheticDataSource(long n, long seed) {
+        this.n = n;
+        this.seed = seed;
+    }
+
+    public abstract String getName();
+
+    /**
+     * @return a value drawn from the distribution
+     */
+    protected abstract double sample(SplittableRandom r);
+
+    /**
+     * @return fraction of the distribution less than or equal to x
+     */
+    public abstract double cdf(double x);
+
+    /**
+     * @return inverse of the cdf at p
+     */
+    public abstract double quantile(double p);
+
+    public double[] getQuantiles(List<Double> ps) {
+        double[] qs = new double[ps.size()];
+        for (int i = 0; i < qs.length; i++) {
+            qs[i] = quantile(ps.get(i));
+        }
+        return qs;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    public long size() {
+        return n;
+    }
+
+    public long getNumBlocks() {
+        return (n + blockSize - 1) / blockSize;
+    }
+
+    /**
+     * Writes the values of block b to dest, which must hold blockSize values.
+     * @return number of values in the block
+     */
+    public int fillBlock(long b, double[] dest, int off) {
+        int len = (int)Math.min(blockSize, n - b * blockSize);
+        // the seed is hashed before the block index is added, so that no
+        // block of one seed shares its stream with a block of another
+        SplittableRandom r = new SplittableRandom(mix64(mix64(seed) + b));
+        for (int i = off; i < off + len; i++) {
+            dest[i] = sample(r);
+        }
+        return len;
+    }
+
+    @Override
+    public double[] get() throws IOException {
+        if (n > Integer.MAX_VALUE - 8) {
+            throw new IOException("Too many values for an array: "+n);
+        }
+        double[] data = new double[(int)n];
+        long numBlocks = getNumBlocks();
+        int numThreads = (int)Math.max(1, Math.min(this.numThreads, numBlocks));
+
+        final CountDownLatch doneSignal = new CountDownLatch(numThreads);
+        // first exception thrown by any of the block threads
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < numThreads; t++) {
+            final int threadIdx = t;
+            Runnable blockRunnable = () -> {
+                try {
+                    for (long b = threadIdx; b < numBlocks; b += numThreads) {
+                        fillBlock(b, data, (int)(b * blockSize));
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    doneSignal.countDown();
+                }
+            };
+            Thread blockThread = new Thread(blockRunnable);
+            blockThread.start();
+        }
+        try {
+            doneSignal.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+        if (failure.get() != null) {
+            throw new IOException("Failed to generate synthetic data", failure.get());
+        }
+        return data;
+    }
+
+    @Override
+    public DataSlice next() {
+        if (chunk == null) {
+            chunk = new double[blockSize];
+            nextBlock = 0;
+        }
+        if (nextBlock >= getNumBlocks()) {
+            return null;
+        }
+        int len = fillBlock(nextBlock++, chunk, 0);
+        return new DataSlice(chunk, 0, len);
+    }
+
+    @Override
+    public void reset() {
+        nextBlock = 0;
+    }
+
+    @Override
+    public void close() {
+        chunk = null;
+    }
+
+    /**
+     * Parses names like "gauss", "lognormal", "exponential", "pareto:1.5" or
+     * "discrete:1000", where the optional number is the shape parameter or
+     * the cardinality. "gauss_outliers:fraction:distance:scaleFactor" mixes
+     * outliers into a standard normal, with trailing parameters defaulting
+     * to 0.01, 100 and 0.1.
+     * @return null if the name is not a synthetic distribution
+     */
+    public static SyntheticDataSource fromName(String name, long n, long seed) {
+        String[] parts = name.split(":");
+        boolean hasParam = parts.length > 1;
+        switch (parts[0]) {
+            case "gauss_outliers":
+                return new OutlierMixture(
+                        new Gaussian(n, seed, 0.0, 1.0),
+                        hasParam ? Double.parseDouble(parts[1]) : 0.01,
+                        parts.length > 2 ? Double.parseDouble(parts[2]) : 100.0,
+                        parts.length > 3 ? Double.parseDouble(parts[3]) : 0.1
+                );
+            case "gauss":
+                return new Gaussian(n, seed, 0.0, 1.0);
+            case "lognormal":
+                return new LogNormal(n, seed, 0.0, hasParam ? Double.parseDouble(parts[1]) : 1.0);
+            case "exponential":
+                return new Exponential(n, seed, hasParam ? Double.parseDouble(parts[1]) : 1.0);
+            case "pareto":
+                return new Pareto(n, seed, 1.0, hasParam ? Double.parseDouble(parts[1]) : 2.0);
+            case "discrete":
+                return new DiscreteUniform(n, seed, hasParam ? Integer.parseInt(parts[1]) : 100);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Stafford's variant 13 of the MurmurHash3 finalizer, as used inside
+     * SplittableRandom.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double nextGaussian(SplittableRandom r) {
+        // Marsaglia polar method, dropping the second value so that every
+        // draw is independent of the previous one
+        double v1, v2, s;
+        do {
+            v1 = 2 * r.nextDouble() - 1;
+            v2 = 2 * r.nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        return v1 * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
+    private static double clampP(double p) {
+        return Math.min(1.0, Math.max(0.0, p));
+    }
+
+    public static class Gaussian extends SyntheticDataSource {
+        private double mean;
+        private double std;
+
+        public Gaussian(long n, long seed, double mean, double std) {
+            super(n, seed);
+            this.mean = mean;
+            this.std = std;
+        }
+
+        @Override
+        public String getName() {
+            return "gauss";
+        }
+
+        @Override
+        protected double sample(SplittableRandom r) {
+            return mean + std * nextGaussian(r);
+        }
+
+        @Override
+        public double cdf(double x) {
+            return standardNormal.cumulativeProbability((x - mean) / std);
+        }
+
+        @Override
+        public double quantile(double p) {
+            return mean + std * standardNormal.inverseCumulativeProbability(clampP(p));
+        }
+    }
+
+    public static class LogNormal extends SyntheticDataSource {
+        private double mu;
+        private double sigma;
+
+        public LogNormal(long n, long seed, double mu, double sigma) {
+            super(n, seed);
+            this.mu = mu;
+            this.sigma = sigma;
+        }
+
+        @Override
+        public String getName() {
+            return "lognormal";
+        }
+
+        @Override
+        protected double sample(SplittableRandom r) {
+            return Math.exp(mu + sigma * nextGaussian(r));
+        }
+
+        @Override
+        public double cdf(double x) {
+            if (x <= 0) {
+                return 0.0;
+            }
+            return standardNormal.cumulativeProbability((Math.log(x) - mu) / sigma);
+        }
+
+        @Override
+        public double quantile(double p) {
+            return Math.exp(mu + sigma * standardNormal.inverseCumulativeProbability(clampP(p)));
+        }
+    }
+
+    public static class Exponential extends SyntheticDataSource {
+        private double rate;
+
+        public Exponential(long n, long seed, double rate) {
+            super(n, seed);
+            this.rate = rate;
+        }
+
+        @Override
+        public String getName() {
+            return "exponential";
+        }
+
+        @Override
+        protected double sample(SplittableRandom r) {
+            return -Math.log1p(-r.nextDouble()) / rate;
+        }
+
+        @Override
+        public double cdf(double x) {
+            if (x <= 0) {
+                return 0.0;
+            }
+            return -Math.expm1(-rate * x);
+        }
+
+        @Override
+        public double quantile(double p) {
+            return -Math.log1p(-clampP(p)) / rate;
+        }
+    }
+
+    public static class Pareto extends SyntheticDataSource {
+        private double scale;
+        private double shape;
+
+        public Pareto(long n, long seed, double scale, double shape) {
+            super(n, seed);
+            this.scale = scale;
+            this.shape = shape;
+        }
+
+        @Override
+        public String getName() {
+            return "pareto";
+        }
+
+        @Override
+        protected double sample(SplittableRandom r) {
+            return scale * Math.pow(1.0 - r.nextDouble(), -1.0 / shape);
+        }
+
+        @Override
+        public double cdf(double x) {
+            if (x <= scale) {
+                return 0.0;
+            }
+            return 1.0 - Math.pow(scale / x, shape);
+        }
+
+        @Override
+        public double quantile(double p) {
+            return scale * Math.pow(1.0 - clampP(p), -1.0 / shape);
+        }
+    }
+
+    /**
+     * Integers 0 to cardinality-1 with equal probability.
+     */
+    public static class DiscreteUniform extends SyntheticDataSource {
+        private int cardinality;
+
+        public DiscreteUniform(long n, long seed, int cardinality) {
+            super(n, seed);
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public String getName() {
+            return "discrete";
+        }
+
+        @Override
+        protected double sample(SplittableRandom r) {
+            return r.nextInt(cardinality);
+        }
+
+        @Override
+        public double cdf(double x) {
+            if (x < 0) {
+                return 0.0;
+            }
+            return Math.min(1.0, (Math.floor(x) + 1) / cardinality);
+        }
+
+        @Override
+        public double quantile(double p) {
+            // allow for rounding in p * cardinality at the step boundaries
+            return Math.max(0.0, Math.ceil(clampP(p) * cardinality - 1e-9) - 1);
+        }
+    }
+
+    /**
+     * Draws from a base distribution, replacing a fraction of the values
+     * with base*scaleFactor + distance outliers as in OutlierBench.
+     */
+    public static class OutlierMixture extends SyntheticDataSource {
+        private SyntheticDataSource base;
+        private double fraction;
+        private double distance;
+        private double scaleFactor;
+
+        public OutlierMixture(
+                SyntheticDataSource base,
+                double fraction,
+                double distance,
+                double scaleFactor
+        ) {
+            super(base.n, base.seed);
+            this.base = base;
+            this.fraction = fraction;
+            this.distance = distance;
+            this.scaleFactor = scaleFactor;
+        }
+
+        @Override
+        public String getName() {
+            return base.getName() + "_outliers";
+        }
+
+        @Override
+        protected double sample(SplittableRandom r) {
+            boolean isOutlier = r.nextDouble() < fraction;
+            double x = base.sample(r);
+            return isOutlier ? x * scaleFactor + distance : x;
+        }
+
+        @Override
+        public double cdf(double x) {
+            double outlierCDF;
+            if (scaleFactor > 0) {
+                outlierCDF = base.cdf((x - distance) / scaleFactor);
+            } else if (scaleFactor < 0) {
+                outlierCDF = 1.0 - base.cdf((x - distance) / scaleFactor);
+            } else {
+                outlierCDF = x >= distance ? 1.0 : 0.0;
+            }
+            return (1 - fraction) * base.cdf(x) + fraction * outlierCDF;
+        }
+
+        /**
+         * Bisects the mixture cdf between the quantiles of its two parts.
+         */
+        @Override
+        public double quantile(double p) {
+            p = clampP(p);
+            double a = base.quantile(p);
+            double b;
+            if (scaleFactor >= 0) {
+                b = base.quantile(p) * scaleFactor + distance;
+            } else {
+                b = base.quantile(1.0 - p) * scaleFactor + distance;
+            }
+            double lo = Math.min(a, b);
+            double hi = Math.max(a, b);
+            if (Double.isInfinite(lo) || Double.isInfinite(hi)) {
+                return p < 0.5 ? lo : hi;
+            }
+            for (int i = 0; i < 200 && lo < hi; i++) {
+                double mid = lo + (hi - lo) / 2;
+                if (mid <= lo || mid >= hi) {
+                    break;
+                }
+                if (cdf(mid) >= p) {
+                    hi = mid;
+                } else {
+                    lo = mid;
+                }
+            }
+            return hi;
+        }
+    }
+}
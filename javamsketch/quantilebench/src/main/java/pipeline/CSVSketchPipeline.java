@@ -0,0 +1,332 @@
+package pipeline;
+
+import io.DoubleParser;
+import sketches.QuantileSketch;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Parses a csv file straight into one sketch per cell without ever holding
+ * the parsed column. A reader thread only scans for line breaks and hands
+ * byte ranges holding whole cells to a bounded queue. One worker per core
+ * then parses each range and adds every cell to its own sketch as soon as
+ * the cell is decoded.
+ *
+ * Cells are either runs of cellSize rows from one column, or with grouped
+ * set, one row per cell in the bracketed format of GroupedCSVDataSource.
+ */
+public class CSVSketchPipeline {
+    // Ranges are mapped by the reader in windows of this many bytes
+    private static final long SCAN_WINDOW_SIZE = 1L << 30;
+
+    private String fileName;
+    private int column;
+    private boolean hasHeader = true;
+    private boolean grouped = false;
+    private int cellSize = 200;
+    private int numWorkers = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 2 * numWorkers;
+    private int cellsPerBatch = 256;
+
+    private long numRows;
+    private volatile Throwable failure;
+
+    /**
+     * Byte range [start, end) of the file holding whole cells, and the
+     * sketches for those cells once a worker has built them.
+     */
+    private static class Batch {
+        final long start;
+        final long end;
+        final int batchIndex;
+        QuantileSketch[] cellSketches;
+
+        Batch(long start, long end, int batchIndex) {
+            this.start = start;
+            this.end = end;
+            this.batchIndex = batchIndex;
+        }
+    }
+    private static final Batch END_OF_INPUT = new Batch(0, 0, -1);
+
+    public CSVSketchPipeline(String fileName, int column) {
+        this.fileName = fileName;
+        this.column = column;
+    }
+
+    public void setHasHeader(boolean hasHeader) {
+        this.hasHeader = hasHeader;
+    }
+    public void setGrouped(boolean grouped) {
+        this.grouped = grouped;
+    }
+    public void setCellSize(int cellSize) {
+        this.cellSize = cellSize;
+    }
+    public void setNumWorkers(int numWorkers) {
+        this.numWorkers = numWorkers;
+    }
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    public void setCellsPerBatch(int cellsPerBatch) {
+        this.cellsPerBatch = cellsPerBatch;
+    }
+
+    /**
+     * @return sketches for every cell, in file order
+     */
+    public ArrayList<QuantileSketch> run(Supplier<QuantileSketch> sFactory) throws IOException {
+        failure = null;
+        numRows = 0;
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        List<Batch> done = new ArrayList<>();
+
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+
+            final CountDownLatch doneSignal = new CountDownLatch(numWorkers);
+            for (int w = 0; w < numWorkers; w++) {
+                Runnable workerRunnable = () -> {
+                    try {
+                        runWorker(channel, queue, done, sFactory);
+                    } catch (Throwable t) {
+                        failure = t;
+                    } finally {
+                        doneSignal.countDown();
+                    }
+                };
+                Thread workerThread = new Thread(workerRunnable);
+                workerThread.setDaemon(true);
+                workerThread.start();
+            }
+
+            try {
+                scan(channel, queue);
+            } finally {
+                for (int w = 0; w < numWorkers; w++) {
+                    put(queue, END_OF_INPUT);
+                }
+            }
+            try {
+                doneSignal.await();
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+        }
+        if (failure != null) {
+            throw new IOException("Failed to ingest "+fileName, failure);
+        }
+
+        done.sort(Comparator.comparingInt((Batch b) -> b.batchIndex));
+        ArrayList<QuantileSketch> cellSketches = new ArrayList<>();
+        for (Batch b : done) {
+            for (QuantileSketch s : b.cellSketches) {
+                cellSketches.add(s);
+            }
+        }
+        return cellSketches;
+    }
+
+    private void put(BlockingQueue<Batch> queue, Batch b) throws IOException {
+        try {
+            while (!queue.offer(b, 100, TimeUnit.MILLISECONDS)) {
+                if (failure != null) {
+                    // workers stop taking batches once one of them fails
+                    queue.clear();
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Cuts the file into batches of whole cells, counting non-empty lines
+     * the same way the workers do.
+     */
+    private void scan(FileChannel channel, BlockingQueue<Batch> queue) throws IOException {
+        long size = channel.size();
+        int rowsPerBatch = grouped ? cellsPerBatch : cellsPerBatch * cellSize;
+        boolean skipLine = hasHeader;
+        long batchStart = 0;
+        int batchRows = 0;
+        int batchIndex = 0;
+        boolean lineHasContent = false;
+
+        for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW_SIZE) {
+            long windowLen = Math.min(SCAN_WINDOW_SIZE, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLen);
+            for (int i = 0; i < windowLen; i++) {
+                byte b = window.get(i);
+                if (b != '\n') {
+                    if (b != '\r') {
+                        lineHasContent = true;
+                    }
+                    continue;
+                }
+                long lineEnd = windowStart + i + 1;
+                if (skipLine) {
+                    skipLine = false;
+                    batchStart = lineEnd;
+                } else if (lineHasContent) {
+                    batchRows++;
+                    numRows++;
+                    if (batchRows == rowsPerBatch) {
+                        if (failure != null) {
+                            return;
+                        }
+                        put(queue, new Batch(batchStart, lineEnd, batchIndex++));
+                        batchStart = lineEnd;
+                        batchRows = 0;
+                    }
+                }
+                lineHasContent = false;
+            }
+        }
+        // last line without a trailing newline
+        if (lineHasContent && !skipLine) {
+            batchRows++;
+            numRows++;
+        }
+        if (batchRows > 0) {
+            put(queue, new Batch(batchStart, size, batchIndex));
+        }
+    }
+
+    private void runWorker(
+            FileChannel channel,
+            BlockingQueue<Batch> queue,
+            List<Batch> done,
+            Supplier<QuantileSketch> sFactory
+    ) throws IOException, InterruptedException {
+        // the only buffer of parsed values, holding one cell at a time
+        CellBuffer cell = new CellBuffer(grouped ? 16 : cellSize);
+        List<QuantileSketch> sketches = new ArrayList<>();
+        while (true) {
+            Batch batch = queue.take();
+            if (batch == END_OF_INPUT || failure != null) {
+                return;
+            }
+            MappedByteBuffer range = channel.map(
+                    FileChannel.MapMode.READ_ONLY, batch.start, batch.end - batch.start
+            );
+            sketches.clear();
+            int end = range.limit();
+            cell.size = 0;
+            int lineStart = 0;
+            while (lineStart < end) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && range.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && range.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                if (contentEnd > lineStart) {
+                    if (grouped) {
+                        cell.size = 0;
+                        parseGroup(range, lineStart, contentEnd, cell);
+                        sketches.add(newCell(sFactory, cell));
+                    } else {
+                        cell.append(parseColumn(range, lineStart, contentEnd));
+                        if (cell.size == cellSize) {
+                            sketches.add(newCell(sFactory, cell));
+                            cell.size = 0;
+                        }
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            if (!grouped && cell.size > 0) {
+                sketches.add(newCell(sFactory, cell));
+            }
+            batch.cellSketches = sketches.toArray(new QuantileSketch[0]);
+            synchronized (done) {
+                done.add(batch);
+            }
+        }
+    }
+
+    private static QuantileSketch newCell(Supplier<QuantileSketch> sFactory, CellBuffer cell) {
+        QuantileSketch curSketch = sFactory.get();
+        curSketch.initialize();
+        curSketch.add(cell.values, 0, cell.size);
+        return curSketch;
+    }
+
+    private double parseColumn(MappedByteBuffer range, int lineStart, int contentEnd) {
+        int fieldStart = lineStart;
+        for (int c = 0; c < column && fieldStart < contentEnd; c++) {
+            while (fieldStart < contentEnd && range.get(fieldStart) != ',') {
+                fieldStart++;
+            }
+            fieldStart++;
+        }
+        fieldStart = Math.min(fieldStart, contentEnd);
+        int fieldEnd = fieldStart;
+        while (fieldEnd < contentEnd && range.get(fieldEnd) != ',') {
+            fieldEnd++;
+        }
+        return DoubleParser.parse(range, fieldStart, fieldEnd);
+    }
+
+    /**
+     * Parses the comma separated values between the first '[' and the last
+     * ']' of the line.
+     */
+    private static void parseGroup(MappedByteBuffer range, int lineStart, int contentEnd, CellBuffer cell) {
+        int groupStart = lineStart;
+        while (groupStart < contentEnd && range.get(groupStart) != '[') {
+            groupStart++;
+        }
+        int groupEnd = contentEnd;
+        while (groupEnd > groupStart && range.get(groupEnd - 1) != ']') {
+            groupEnd--;
+        }
+        groupStart++;
+        groupEnd--;
+        int fieldStart = groupStart;
+        while (fieldStart < groupEnd) {
+            int fieldEnd = fieldStart;
+            while (fieldEnd < groupEnd && range.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            cell.append(DoubleParser.parse(range, fieldStart, fieldEnd));
+            fieldStart = fieldEnd + 1;
+        }
+    }
+
+    public long getNumRows() {
+        return numRows;
+    }
+
+    private static class CellBuffer {
+        double[] values;
+        int size;
+
+        CellBuffer(int capacity) {
+            values = new double[capacity];
+        }
+
+        void append(double x) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * values.length);
+            }
+            values[size++] = x;
+        }
+    }
+}
@@ -43,9 +43,16 @@ public class ApproximateHistogramSketch implements QuantileSketch{
     }
 
     @Override
-    public void add(double[] data) {
-        for (double x : data) {
-            this.hist.offer((float)x);
+    public void add(double[] data, int off, int len) {
+        for (int j = off; j < off + len; j++) {
+            this.hist.offer((float)data[j]);
+        }
+    }
+
+    @Override
+    public void add(float[] data) {
+        for (float x : data) {
+            this.hist.offer(x);
         }
     }
 
@@ -73,6 +80,17 @@ public class ApproximateHistogramSketch implements QuantileSketch{
         return qsDouble;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int m = xs.length;
+        double[] cdf = new double[m];
+        double count = hist.count();
+        for (int i = 0; i < m; i++) {
+            cdf[i] = hist.sum((float)xs[i]) / count;
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
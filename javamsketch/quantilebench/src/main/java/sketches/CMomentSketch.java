@@ -3,12 +3,21 @@ package sketches;
 import msolver.ChebyshevMomentSolver2;
 import msolver.MathUtil;
 import msolver.SimpleBoundSolver;
+import msolver.SlowSolveCapture;
+import msolver.struct.MomentStruct;
 import scala.xml.PrettyPrinter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tracks both the moments and the log-moments and solves for both
@@ -30,6 +39,30 @@ public class CMomentSketch implements QuantileSketch{
     private boolean errorBounds = false;
     private double[] errors;
 
+    // Background error bound computation, see getQuantilesAsync
+    private static ExecutorService defaultErrorExecutor;
+    private ExecutorService errorExecutor;
+    private long stateVersion = 0;
+    private long cachedVersion = -1;
+    private List<Double> cachedPs;
+    private CompletableFuture<double[]> cachedErrors;
+    private Future<?> pendingErrors;
+
+    // Records the inputs of slow solves when set
+    private SlowSolveCapture solveCapture;
+
+    /**
+     * Quantile estimates along with error bounds still being computed.
+     */
+    public static class QuantileEstimate {
+        public double[] quantiles;
+        public CompletableFuture<double[]> errors;
+        public QuantileEstimate(double[] quantiles, CompletableFuture<double[]> errors) {
+            this.quantiles = quantiles;
+            this.errors = errors;
+        }
+    }
+
     @Override
     public String getName() {
         return "cmoments";
@@ -67,6 +100,7 @@ public class CMomentSketch implements QuantileSketch{
         this.logMin = Double.MAX_VALUE;
         this.logMax = -Double.MAX_VALUE;
         this.totalSums = new double[ka+kb];
+        stateVersion++;
     }
 
     @Override
@@ -97,11 +131,36 @@ public class CMomentSketch implements QuantileSketch{
         this.max = max;
         this.logMin = logMin;
         this.logMax = logMax;
+        stateVersion++;
+    }
+
+    /**
+     * @return copy of the statistics passed to the solver by getQuantiles
+     */
+    public MomentStruct getMomentStruct() {
+        MomentStruct ms = new MomentStruct();
+        ms.min = min;
+        ms.max = max;
+        ms.logMin = logMin;
+        ms.logMax = logMax;
+        ms.powerSums = Arrays.copyOfRange(totalSums, 0, ka);
+        ms.logSums = getSolveLogSums();
+        return ms;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setSolveCapture(SlowSolveCapture solveCapture) {
+        this.solveCapture = solveCapture;
     }
 
     @Override
-    public void add(double[] data) {
-        for (double x: data) {
+    public void add(double[] data, int off, int len) {
+        stateVersion++;
+        for (int j = off; j < off + len; j++) {
+            double x = data[j];
             if (x < this.min) {
                 this.min = x;
             } else if (x > this.max) {
@@ -132,6 +191,132 @@ public class CMomentSketch implements QuantileSketch{
         }
     }
 
+    @Override
+    public void add(int[] data) {
+        long[] buffer = new long[Math.min(4096, data.length)];
+        for (int start = 0; start < data.length; start += buffer.length) {
+            int len = Math.min(buffer.length, data.length - start);
+            for (int i = 0; i < len; i++) {
+                buffer[i] = data[start + i];
+            }
+            addLongs(buffer, 0, len);
+        }
+    }
+
+    @Override
+    public void add(long[] data) {
+        addLongs(data, 0, data.length);
+    }
+
+    /**
+     * The sum and sum of squares of integer data are accumulated exactly in
+     * longs, falling back to doubles once they would overflow.
+     */
+    private void addLongs(long[] data, int off, int len) {
+        if (ka < 3) {
+            QuantileSketch.super.add(Arrays.copyOfRange(data, off, off + len));
+            return;
+        }
+        stateVersion++;
+        double[] localSums = this.totalSums;
+        long sum = 0;
+        long sumSquares = 0;
+        boolean exact = true;
+        for (int j = off; j < off + len; j++) {
+            long v = data[j];
+            double x = v;
+            if (x < this.min) {
+                this.min = x;
+            } else if (x > this.max) {
+                this.max = x;
+            }
+            localSums[0]++;
+            if (exact) {
+                try {
+                    long newSum = Math.addExact(sum, v);
+                    sumSquares = Math.addExact(sumSquares, Math.multiplyExact(v, v));
+                    sum = newSum;
+                } catch (ArithmeticException e) {
+                    exact = false;
+                    localSums[1] += sum;
+                    localSums[2] += sumSquares;
+                }
+            }
+            double curPow = x*x;
+            if (!exact) {
+                localSums[1] += x;
+                localSums[2] += curPow;
+            }
+            for (int i = 3; i < ka; i++) {
+                curPow *= x;
+                localSums[i] += curPow;
+            }
+
+            if (x > 0.0) {
+                double logX = Math.log(x);
+                if (logX < this.logMin) {
+                    this.logMin = logX;
+                } else if (logX > this.logMax) {
+                    this.logMax = logX;
+                }
+                localSums[ka]++;
+                curPow = 1.0;
+                for (int i = 1; i < kb; i++) {
+                    curPow *= logX;
+                    localSums[ka+i] += curPow;
+                }
+            }
+        }
+        if (exact) {
+            localSums[1] += sum;
+            localSums[2] += sumSquares;
+        }
+    }
+
+    @Override
+    public void add(double[] values, double[] weights) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("values and weights must have the same length");
+        }
+        stateVersion++;
+        for (int j = 0; j < values.length; j++) {
+            double x = values[j];
+            double w = weights[j];
+            if (w == 0.0) {
+                continue;
+            }
+            if (x < this.min) {
+                this.min = x;
+            }
+            if (x > this.max) {
+                this.max = x;
+            }
+            double[] localSums = this.totalSums;
+            localSums[0] += w;
+            double curPow = w;
+            for (int i = 1; i < ka; i++) {
+                curPow *= x;
+                localSums[i] += curPow;
+            }
+
+            if (x > 0.0) {
+                double logX = Math.log(x);
+                if (logX < this.logMin) {
+                    this.logMin = logX;
+                }
+                if (logX > this.logMax) {
+                    this.logMax = logX;
+                }
+                localSums[ka] += w;
+                curPow = w;
+                for (int i = 1; i < kb; i++) {
+                    curPow *= logX;
+                    localSums[ka+i] += curPow;
+                }
+            }
+        }
+    }
+
     @Override
     public QuantileSketch merge(List<QuantileSketch> sketches, int startIndex, int endIndex) {
         double mMin = this.min;
@@ -163,6 +348,7 @@ public class CMomentSketch implements QuantileSketch{
         this.max = mMax;
         this.logMin = mLogMin;
         this.logMax = mLogMax;
+        stateVersion++;
         return this;
     }
 
@@ -170,49 +356,187 @@ public class CMomentSketch implements QuantileSketch{
     @Override
     public double[] getQuantiles(List<Double> pList) throws Exception {
         double[] powerSums = Arrays.copyOfRange(totalSums, 0, ka);
-        double[] logSums = Arrays.copyOfRange(totalSums, ka, ka+kb);
-
-        ChebyshevMomentSolver2 solver;
-        boolean useStandardBasis = true;
-        if (min > 0) {
-            solver = ChebyshevMomentSolver2.fromPowerSums(
-                    min, max, powerSums,
-                    logMin, logMax, logSums
-            );
-            useStandardBasis = solver.isUseStandardBasis();
-        } else {
-            useStandardBasis = true;
-            logSums = new double[1];
-            solver = ChebyshevMomentSolver2.fromPowerSums(
-                    min, max, powerSums,
-                    logMin, logMax, logSums
-            );
-        }
-        solver.setVerbose(verbose);
-        solver.solve(tolerance);
+        double[] logSums = getSolveLogSums();
+        ChebyshevMomentSolver2 solver = solve(powerSums, logSums);
         int m = pList.size();
         double[] ps = MathUtil.listToArray(pList);
         double[] quantiles = solver.estimateQuantiles(ps);
 
         errors = new double[m];
         if (errorBounds) {
-            if (useStandardBasis) {
-                double[] moments = MathUtil.powerSumsToMoments(powerSums);
-                SimpleBoundSolver boundSolver = new SimpleBoundSolver(solver.getNumNormalPowers());
-                double[] boundSizes = boundSolver.solveBounds(moments, quantiles);
-                errors = boundSolver.getMaxErrors(moments, quantiles, ps, boundSizes);
+            errors = calcErrors(
+                    isUseStandardBasis(solver), solver.getNumNormalPowers(),
+                    powerSums, logSums, quantiles, ps
+            );
+        }
+        return quantiles;
+    }
+
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int m = xs.length;
+        double[] cdf = new double[m];
+        if (min == max) {
+            for (int i = 0; i < m; i++) {
+                cdf[i] = xs[i] >= min ? 1.0 : 0.0;
+            }
+            return cdf;
+        }
+        double[] powerSums = Arrays.copyOfRange(totalSums, 0, ka);
+        double[] logSums = getSolveLogSums();
+        ChebyshevMomentSolver2 solver = solve(powerSums, logSums);
+        // normalized the same way as estimateQuantiles
+        double total = solver.estimateCDF(max);
+        for (int i = 0; i < m; i++) {
+            double x = xs[i];
+            if (x < min) {
+                cdf[i] = 0.0;
+            } else if (x >= max) {
+                cdf[i] = 1.0;
             } else {
-                double[] logQuantiles = new double[m];
-                for (int i = 0; i < m; i++) {
-                    logQuantiles[i] = Math.log(quantiles[i]);
-                }
-                double[] moments = MathUtil.powerSumsToMoments(logSums);
-                SimpleBoundSolver boundSolver = new SimpleBoundSolver(solver.getNumNormalPowers());
-                double[] boundSizes = boundSolver.solveBounds(moments, logQuantiles);
-                errors = boundSolver.getMaxErrors(moments, logQuantiles, ps, boundSizes);
+                cdf[i] = Math.min(1.0, Math.max(0.0, solver.estimateCDF(x) / total));
             }
         }
-        return quantiles;
+        return cdf;
+    }
+
+    /**
+     * Returns quantile estimates right away, with the error bounds computed
+     * on a bounded pool of daemon threads. Repeated calls with the same ps
+     * and no updates to the sketch share the same future, and a pending
+     * computation for an older sketch state is cancelled.
+     */
+    public synchronized QuantileEstimate getQuantilesAsync(List<Double> pList) throws Exception {
+        double[] powerSums = Arrays.copyOfRange(totalSums, 0, ka);
+        double[] logSums = getSolveLogSums();
+        ChebyshevMomentSolver2 solver = solve(powerSums, logSums);
+        double[] ps = MathUtil.listToArray(pList);
+        double[] quantiles = solver.estimateQuantiles(ps);
+
+        if (cachedErrors != null
+                && cachedVersion == stateVersion
+                && cachedPs.equals(pList)
+                && !cachedErrors.isCancelled()) {
+            return new QuantileEstimate(quantiles, cachedErrors);
+        }
+        if (cachedErrors != null && !cachedErrors.isDone()) {
+            cachedErrors.cancel(false);
+            pendingErrors.cancel(false);
+        }
+
+        final boolean useStandardBasis = isUseStandardBasis(solver);
+        final int numNormalPowers = solver.getNumNormalPowers();
+        final double[] qs = quantiles.clone();
+        final CompletableFuture<double[]> future = new CompletableFuture<>();
+        Runnable errorRunnable = () -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(calcErrors(
+                        useStandardBasis, numNormalPowers,
+                        powerSums, logSums, qs, ps
+                ));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        };
+        try {
+            pendingErrors = getErrorExecutor().submit(errorRunnable);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            pendingErrors = future;
+        }
+        cachedVersion = stateVersion;
+        cachedPs = new ArrayList<>(pList);
+        cachedErrors = future;
+        return new QuantileEstimate(quantiles, future);
+    }
+
+    private double[] getSolveLogSums() {
+        if (min > 0) {
+            return Arrays.copyOfRange(totalSums, ka, ka+kb);
+        } else {
+            return new double[1];
+        }
+    }
+
+    private boolean isUseStandardBasis(ChebyshevMomentSolver2 solver) {
+        // log moments are only tracked over the positive values
+        return min <= 0 || solver.isUseStandardBasis();
+    }
+
+    private ChebyshevMomentSolver2 solve(double[] powerSums, double[] logSums) {
+        ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                min, max, powerSums,
+                logMin, logMax, logSums
+        );
+        solver.setVerbose(verbose);
+        long startTime = System.nanoTime();
+        solver.solve(tolerance);
+        if (solveCapture != null) {
+            MomentStruct ms = new MomentStruct();
+            ms.min = min;
+            ms.max = max;
+            ms.logMin = logMin;
+            ms.logMax = logMax;
+            ms.powerSums = powerSums;
+            ms.logSums = logSums;
+            solveCapture.record(ms, tolerance, System.nanoTime() - startTime);
+        }
+        return solver;
+    }
+
+    private static double[] calcErrors(
+            boolean useStandardBasis,
+            int numNormalPowers,
+            double[] powerSums,
+            double[] logSums,
+            double[] quantiles,
+            double[] ps
+    ) {
+        int m = ps.length;
+        if (useStandardBasis) {
+            double[] moments = MathUtil.powerSumsToMoments(powerSums);
+            SimpleBoundSolver boundSolver = new SimpleBoundSolver(numNormalPowers);
+            double[] boundSizes = boundSolver.solveBounds(moments, quantiles);
+            return boundSolver.getMaxErrors(moments, quantiles, ps, boundSizes);
+        } else {
+            double[] logQuantiles = new double[m];
+            for (int i = 0; i < m; i++) {
+                logQuantiles[i] = Math.log(quantiles[i]);
+            }
+            double[] moments = MathUtil.powerSumsToMoments(logSums);
+            SimpleBoundSolver boundSolver = new SimpleBoundSolver(numNormalPowers);
+            double[] boundSizes = boundSolver.solveBounds(moments, logQuantiles);
+            return boundSolver.getMaxErrors(moments, logQuantiles, ps, boundSizes);
+        }
+    }
+
+    private ExecutorService getErrorExecutor() {
+        if (errorExecutor != null) {
+            return errorExecutor;
+        }
+        synchronized (CMomentSketch.class) {
+            if (defaultErrorExecutor == null) {
+                int numThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+                defaultErrorExecutor = new ThreadPoolExecutor(
+                        numThreads, numThreads,
+                        60L, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(256),
+                        r -> {
+                            Thread t = new Thread(r, "cmoments-errors");
+                            t.setDaemon(true);
+                            return t;
+                        }
+                );
+            }
+            return defaultErrorExecutor;
+        }
+    }
+
+    public void setErrorExecutor(ExecutorService errorExecutor) {
+        this.errorExecutor = errorExecutor;
     }
 
     @Override
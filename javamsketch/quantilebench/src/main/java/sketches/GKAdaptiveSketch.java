@@ -47,10 +47,10 @@ public class GKAdaptiveSketch implements QuantileSketch{
     }
 
     @Override
-    public void add(double[] data) {
+    public void add(double[] data, int off, int len) {
         int iBuff = 0;
-        for (double x : data) {
-            buffer[iBuff] = x;
+        for (int j = off; j < off + len; j++) {
+            buffer[iBuff] = data[j];
             iBuff++;
             if (iBuff == bufferSize) {
                 this.summary.add(buffer);
@@ -85,6 +85,16 @@ public class GKAdaptiveSketch implements QuantileSketch{
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int m = xs.length;
+        double[] cdf = new double[m];
+        for (int i = 0; i < m; i++) {
+            cdf[i] = summary.cdf(xs[i]);
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
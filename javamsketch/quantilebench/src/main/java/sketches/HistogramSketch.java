@@ -3,6 +3,7 @@ package sketches;
 import org.apache.commons.math3.util.FastMath;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -14,6 +15,8 @@ public class HistogramSketch implements QuantileSketch{
     private double bucketWidth = 0.0;
     private double startLoc = 0.0;
     private long[] counts;
+    // Whether buckets have been chosen by an earlier add or merge
+    private boolean hasData = false;
 
     private double[] errors;
 
@@ -45,13 +48,47 @@ public class HistogramSketch implements QuantileSketch{
     @Override
     public void initialize() {
         this.counts = new long[k];
+        this.hasData = false;
+        this.startLoc = 0.0;
+        this.bucketWidth = 0.0;
     }
 
     @Override
-    public void add(double[] data) {
+    public void add(double[] data, int off, int len) {
+        if (len == 0) {
+            return;
+        }
         double min = Double.MAX_VALUE;
         double max = -Double.MAX_VALUE;
-        for (double x : data) {
+        for (int j = off; j < off + len; j++) {
+            double x = data[j];
+            if (x > max) {
+                max = x;
+            }
+            if (x < min) {
+                min = x;
+            }
+        }
+        if (!coverRange(min, max)) {
+            counts[0] += len;
+            return;
+        }
+        double invBucketWidth = 1.0/bucketWidth;
+        int l = counts.length;
+        for (int j = off; j < off + len; j++) {
+            int idx = (int)((data[j] - startLoc) * invBucketWidth);
+            counts[idx >= l ? l-1 : idx]++;
+        }
+    }
+
+    @Override
+    public void add(float[] data) {
+        if (data.length == 0) {
+            return;
+        }
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (float x : data) {
             if (x > max) {
                 max = x;
             }
@@ -59,33 +96,205 @@ public class HistogramSketch implements QuantileSketch{
                 min = x;
             }
         }
+        if (!coverRange(min, max)) {
+            counts[0] += data.length;
+            return;
+        }
+        double invBucketWidth = 1.0/bucketWidth;
+        int l = counts.length;
+        for (float x : data) {
+            int idx = (int)((x - startLoc) * invBucketWidth);
+            counts[idx >= l ? l-1 : idx]++;
+        }
+    }
+
+    @Override
+    public void add(int[] data) {
+        if (data.length == 0) {
+            return;
+        }
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int x : data) {
+            if (x > max) {
+                max = x;
+            }
+            if (x < min) {
+                min = x;
+            }
+        }
+        if (!coverRange(min, max)) {
+            counts[0] += data.length;
+            return;
+        }
+        double invBucketWidth = 1.0/bucketWidth;
+        int l = counts.length;
+        for (int x : data) {
+            int idx = (int)((x - startLoc) * invBucketWidth);
+            counts[idx >= l ? l-1 : idx]++;
+        }
+    }
+
+    @Override
+    public void add(long[] data) {
+        if (data.length == 0) {
+            return;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long x : data) {
+            if (x > max) {
+                max = x;
+            }
+            if (x < min) {
+                min = x;
+            }
+        }
+        if (!coverRange(min, max)) {
+            counts[0] += data.length;
+            return;
+        }
+        double invBucketWidth = 1.0/bucketWidth;
+        int l = counts.length;
+        for (long x : data) {
+            int idx = (int)((x - startLoc) * invBucketWidth);
+            counts[idx >= l ? l-1 : idx]++;
+        }
+    }
+
+    /**
+     * Picks buckets covering [min, max] on the first add and widens the
+     * existing buckets to cover it on later ones.
+     * @return false if every value so far is equal, in which case they all
+     * go in the first bucket
+     */
+    private boolean coverRange(double min, double max) {
+        if (!hasData) {
+            hasData = true;
+            return setBuckets(min, max);
+        }
+        widen(min, max);
+        return bucketWidth != 0.0;
+    }
+
+    /**
+     * Picks the power-of-2 bucket width and start covering [min, max].
+     * @return false if min equals max, in which case everything goes in the
+     * first bucket
+     */
+    private boolean setBuckets(double min, double max) {
         double rawBucketWidth = (max-min)/(k-1);
         if (rawBucketWidth == 0) {
             startLoc = min;
             bucketWidth = 0.0;
-            counts[0] += data.length;
-            return;
+            return false;
         }
-
         bucketWidth = FastMath.pow(2.0, FastMath.ceil(FastMath.log(2.0, rawBucketWidth)));
         startLoc = FastMath.floor(min/bucketWidth) * bucketWidth;
+        return true;
+    }
+
+    @Override
+    public void add(double[] values, double[] weights) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("values and weights must have the same length");
+        }
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        long totalCount = 0;
+        for (int i = 0; i < values.length; i++) {
+            long count = Math.round(weights[i]);
+            if (count <= 0) {
+                continue;
+            }
+            double x = values[i];
+            if (x > max) {
+                max = x;
+            }
+            if (x < min) {
+                min = x;
+            }
+            totalCount += count;
+        }
+        if (totalCount == 0) {
+            return;
+        }
+        if (!coverRange(min, max)) {
+            counts[0] += totalCount;
+            return;
+        }
         double invBucketWidth = 1.0/bucketWidth;
         int l = counts.length;
-        for (double x : data) {
-            int idx = (int)((x - startLoc) * invBucketWidth);
-            if (idx == l) {
-//                System.out.println(x+"::"+startLoc+":"+bucketWidth);
-                counts[l-1]++;
+        for (int i = 0; i < values.length; i++) {
+            long count = Math.round(weights[i]);
+            if (count <= 0) {
+                continue;
+            }
+            int idx = (int)((values[i] - startLoc) * invBucketWidth);
+            counts[idx >= l ? l-1 : idx] += count;
+        }
+    }
+
+    /**
+     * Moves and grows the buckets of a sketch that already holds data until
+     * they cover [min, max]. The width only ever doubles, by as few steps
+     * as needed, so every old bucket still lies within a single new bucket.
+     */
+    private void widen(double min, double max) {
+        if (bucketWidth == 0.0) {
+            // every value so far equals startLoc and sits in the first bucket
+            if (min == startLoc && max == startLoc) {
+                return;
+            }
+            long count = counts[0];
+            double oldLoc = startLoc;
+            counts[0] = 0;
+            if (setBuckets(FastMath.min(min, oldLoc), FastMath.max(max, oldLoc))) {
+                int idx = (int)((oldLoc - startLoc) / bucketWidth);
+                counts[FastMath.min(idx, k-1)] += count;
             } else {
-                counts[idx]++;
+                counts[0] = count;
             }
+            return;
         }
 
-        return;
+        double endLoc = startLoc + k*bucketWidth;
+        if (min >= startLoc && max <= endLoc) {
+            return;
+        }
+        // only the occupied buckets have to fit in the new range
+        int first = 0;
+        while (first < k-1 && counts[first] == 0) {
+            first++;
+        }
+        int last = k-1;
+        while (last > first && counts[last] == 0) {
+            last--;
+        }
+        double lo = FastMath.min(min, startLoc + first*bucketWidth);
+        double hi = FastMath.max(max, startLoc + (last+1)*bucketWidth);
+        // shifting the start by whole buckets may be enough on its own
+        double newWidth = bucketWidth;
+        double newStart = FastMath.floor(lo/newWidth) * newWidth;
+        while (newStart + k*newWidth < hi) {
+            newWidth *= 2;
+            newStart = FastMath.floor(lo/newWidth) * newWidth;
+        }
+
+        long[] newCounts = new long[k];
+        for (int j = 0; j < k; j++) {
+            double bucketStart = startLoc + j*bucketWidth;
+            int idx = (int)((bucketStart - newStart) / newWidth);
+            newCounts[FastMath.min(idx, k-1)] += counts[j];
+        }
+        counts = newCounts;
+        startLoc = newStart;
+        bucketWidth = newWidth;
     }
 
     @Override
     public QuantileSketch merge(List<QuantileSketch> sketches, int startIndex, int endIndex) {
+        hasData = true;
         double min = Double.MAX_VALUE;
         double max = -Double.MAX_VALUE;
 
@@ -175,6 +384,38 @@ public class HistogramSketch implements QuantileSketch{
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int m = xs.length;
+        long[] totalCounts = new long[k];
+        totalCounts[0] = counts[0];
+        for (int i = 1 ; i < k; i++) {
+            totalCounts[i] = totalCounts[i-1] + counts[i];
+        }
+        double totalCount = totalCounts[k-1];
+
+        double[] cdf = new double[m];
+        for (int i = 0; i < m; i++) {
+            double x = xs[i];
+            if (bucketWidth == 0.0) {
+                cdf[i] = x >= startLoc ? 1.0 : 0.0;
+                continue;
+            }
+            // values are assumed spread evenly within each bucket
+            double pos = (x - startLoc) / bucketWidth;
+            if (pos <= 0) {
+                cdf[i] = 0.0;
+            } else if (pos >= k) {
+                cdf[i] = 1.0;
+            } else {
+                int idx = (int) pos;
+                double below = idx > 0 ? totalCounts[idx-1] : 0.0;
+                cdf[i] = (below + (pos - idx) * counts[idx]) / totalCount;
+            }
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
@@ -1,6 +1,7 @@
 package sketches;
 
 import msolver.ChebyshevMomentSolver;
+import msolver.ChebyshevMomentSolver2;
 import msolver.MathUtil;
 import msolver.SimpleBoundSolver;
 
@@ -98,8 +99,9 @@ public class HybridMomentSketch implements QuantileSketch{
     }
 
     @Override
-    public void add(double[] data) {
-        for (double x: data) {
+    public void add(double[] data, int off, int len) {
+        for (int j = off; j < off + len; j++) {
+            double x = data[j];
             if (x < this.min) {
                 this.min = x;
             } else if (x > this.max) {
@@ -131,6 +133,50 @@ public class HybridMomentSketch implements QuantileSketch{
         }
     }
 
+    @Override
+    public void add(double[] values, double[] weights) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("values and weights must have the same length");
+        }
+        for (int j = 0; j < values.length; j++) {
+            double x = values[j];
+            double w = weights[j];
+            if (w == 0.0) {
+                continue;
+            }
+            if (x < this.min) {
+                this.min = x;
+            }
+            if (x > this.max) {
+                this.max = x;
+            }
+            double[] localSums = this.totalSums;
+            localSums[0] += w;
+            double curPow = w;
+            int numPows = k;
+            for (int i = 1; i < numPows; i++) {
+                curPow *= x;
+                localSums[i] += curPow;
+            }
+
+            if (x > 0.0) {
+                double logX = Math.log(x);
+                if (logX < this.logMin) {
+                    this.logMin = logX;
+                }
+                if (logX > this.logMax) {
+                    this.logMax = logX;
+                }
+                localSums[numPows] += w;
+                curPow = w;
+                for (int i = 1; i < numPows; i++) {
+                    curPow *= logX;
+                    localSums[numPows+i] += curPow;
+                }
+            }
+        }
+    }
+
     @Override
     public QuantileSketch merge(List<QuantileSketch> sketches, int startIndex, int endIndex) {
         double mMin = this.min;
@@ -402,6 +448,38 @@ public class HybridMomentSketch implements QuantileSketch{
         }
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int m = xs.length;
+        double[] cdf = new double[m];
+        if (min == max) {
+            for (int i = 0; i < m; i++) {
+                cdf[i] = xs[i] >= min ? 1.0 : 0.0;
+            }
+            return cdf;
+        }
+        double[] powerSums = Arrays.copyOfRange(totalSums, 0, k);
+        double[] logSums = min > 0 ? Arrays.copyOfRange(totalSums, k, 2*k) : new double[1];
+        ChebyshevMomentSolver2 solver = ChebyshevMomentSolver2.fromPowerSums(
+                min, max, powerSums,
+                logMin, logMax, logSums
+        );
+        solver.setVerbose(verbose);
+        solver.solve(tolerance);
+        double total = solver.estimateCDF(max);
+        for (int i = 0; i < m; i++) {
+            double x = xs[i];
+            if (x < min) {
+                cdf[i] = 0.0;
+            } else if (x >= max) {
+                cdf[i] = 1.0;
+            } else {
+                cdf[i] = Math.min(1.0, Math.max(0.0, solver.estimateCDF(x) / total));
+            }
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
@@ -5,6 +5,7 @@ import msolver.MathUtil;
 import msolver.SimpleBoundSolver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class MomentSketch implements QuantileSketch {
@@ -74,8 +75,9 @@ public class MomentSketch implements QuantileSketch {
     }
 
     @Override
-    public void add(double[] data) {
-        for (double x: data) {
+    public void add(double[] data, int off, int len) {
+        for (int j = off; j < off + len; j++) {
+            double x = data[j];
             if (x < this.min) {
                 this.min = x;
             } else if (x > this.max) {
@@ -92,6 +94,99 @@ public class MomentSketch implements QuantileSketch {
         }
     }
 
+    @Override
+    public void add(int[] data) {
+        long[] buffer = new long[Math.min(4096, data.length)];
+        for (int start = 0; start < data.length; start += buffer.length) {
+            int len = Math.min(buffer.length, data.length - start);
+            for (int i = 0; i < len; i++) {
+                buffer[i] = data[start + i];
+            }
+            addLongs(buffer, 0, len);
+        }
+    }
+
+    @Override
+    public void add(long[] data) {
+        addLongs(data, 0, data.length);
+    }
+
+    /**
+     * The sum and sum of squares of integer data are accumulated exactly in
+     * longs, falling back to doubles once they would overflow.
+     */
+    private void addLongs(long[] data, int off, int len) {
+        if (k < 3) {
+            QuantileSketch.super.add(Arrays.copyOfRange(data, off, off + len));
+            return;
+        }
+        double[] localPowerSums = this.powerSums;
+        long sum = 0;
+        long sumSquares = 0;
+        boolean exact = true;
+        for (int j = off; j < off + len; j++) {
+            long v = data[j];
+            double x = v;
+            if (x < this.min) {
+                this.min = x;
+            } else if (x > this.max) {
+                this.max = x;
+            }
+            localPowerSums[0]++;
+            if (exact) {
+                try {
+                    long newSum = Math.addExact(sum, v);
+                    sumSquares = Math.addExact(sumSquares, Math.multiplyExact(v, v));
+                    sum = newSum;
+                } catch (ArithmeticException e) {
+                    exact = false;
+                    localPowerSums[1] += sum;
+                    localPowerSums[2] += sumSquares;
+                }
+            }
+            double curPow = x*x;
+            if (!exact) {
+                localPowerSums[1] += x;
+                localPowerSums[2] += curPow;
+            }
+            for (int i = 3; i < k; i++) {
+                curPow *= x;
+                localPowerSums[i] += curPow;
+            }
+        }
+        if (exact) {
+            localPowerSums[1] += sum;
+            localPowerSums[2] += sumSquares;
+        }
+    }
+
+    @Override
+    public void add(double[] values, double[] weights) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("values and weights must have the same length");
+        }
+        double[] localPowerSums = this.powerSums;
+        for (int j = 0; j < values.length; j++) {
+            double x = values[j];
+            double w = weights[j];
+            if (w == 0.0) {
+                continue;
+            }
+            if (x < this.min) {
+                this.min = x;
+            }
+            if (x > this.max) {
+                this.max = x;
+            }
+            localPowerSums[0] += w;
+            double curPow = w;
+            for (int i = 1; i < k; i++) {
+                curPow *= x;
+                localPowerSums[i] += curPow;
+            }
+        }
+    }
+
     @Override
     public QuantileSketch merge(List<QuantileSketch> sketches, int startIndex, int endIndex) {
         double mMin = this.min;
@@ -166,6 +261,36 @@ public class MomentSketch implements QuantileSketch {
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int m = xs.length;
+        double[] cdf = new double[m];
+        if (min == max) {
+            for (int i = 0; i < m; i++) {
+                cdf[i] = xs[i] >= min ? 1.0 : 0.0;
+            }
+            return cdf;
+        }
+        ChebyshevMomentSolver solver = ChebyshevMomentSolver.fromPowerSums(
+                min, max, powerSums
+        );
+        solver.setVerbose(verbose);
+        solver.solve(tolerance);
+        double total = solver.estimateCDF(1.0);
+        for (int i = 0; i < m; i++) {
+            double x = xs[i];
+            if (x < min) {
+                cdf[i] = 0.0;
+            } else if (x >= max) {
+                cdf[i] = 1.0;
+            } else {
+                double scaledX = 2.0 * (x - min) / (max - min) - 1.0;
+                cdf[i] = Math.min(1.0, Math.max(0.0, solver.estimateCDF(scaledX) / total));
+            }
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
@@ -16,7 +16,70 @@ public interface QuantileSketch {
     default void setVerbose(boolean flag) {return;}
     void initialize();
 
-    void add(double[] data);
+    default void add(double[] data) { add(data, 0, data.length); }
+    /**
+     * Adds data[off] through data[off+len-1] without copying them.
+     */
+    void add(double[] data, int off, int len);
+    /**
+     * Integer and float data are widened into doubles a chunk at a time
+     * unless the sketch has a specialized kernel for them.
+     */
+    default void add(float[] data) {
+        double[] buffer = new double[Math.min(4096, data.length)];
+        for (int start = 0; start < data.length; start += buffer.length) {
+            int len = Math.min(buffer.length, data.length - start);
+            for (int i = 0; i < len; i++) {
+                buffer[i] = data[start + i];
+            }
+            add(buffer, 0, len);
+        }
+    }
+    default void add(int[] data) {
+        double[] buffer = new double[Math.min(4096, data.length)];
+        for (int start = 0; start < data.length; start += buffer.length) {
+            int len = Math.min(buffer.length, data.length - start);
+            for (int i = 0; i < len; i++) {
+                buffer[i] = data[start + i];
+            }
+            add(buffer, 0, len);
+        }
+    }
+    default void add(long[] data) {
+        double[] buffer = new double[Math.min(4096, data.length)];
+        for (int start = 0; start < data.length; start += buffer.length) {
+            int len = Math.min(buffer.length, data.length - start);
+            for (int i = 0; i < len; i++) {
+                buffer[i] = data[start + i];
+            }
+            add(buffer, 0, len);
+        }
+    }
+    /**
+     * Adds pre-aggregated data where values[i] occurs weights[i] times.
+     * By default each value is expanded into round(weights[i]) copies, a chunk
+     * at a time.
+     */
+    default void add(double[] values, double[] weights) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("values and weights must have the same length");
+        }
+        double[] buffer = new double[4096];
+        int iBuff = 0;
+        for (int i = 0; i < values.length; i++) {
+            long count = Math.round(weights[i]);
+            for (long j = 0; j < count; j++) {
+                buffer[iBuff++] = values[i];
+                if (iBuff == buffer.length) {
+                    add(buffer);
+                    iBuff = 0;
+                }
+            }
+        }
+        if (iBuff > 0) {
+            add(buffer, 0, iBuff);
+        }
+    }
     QuantileSketch merge(List<QuantileSketch> sketches, int startIndex, int endIndex);
     default QuantileSketch merge(List<QuantileSketch> sketches) { return merge(sketches, 0, sketches.size()); }
     default QuantileSketch parallelMerge(ArrayList<QuantileSketch> sketches, int numThreads) { return parallelMerge(sketches, numThreads, 1); }
@@ -81,5 +144,9 @@ public interface QuantileSketch {
 //    }
 
     double[] getQuantiles(List<Double> ps) throws Exception;
+    /**
+     * @return estimated fraction of values less than or equal to each x
+     */
+    double[] getCDF(double[] xs) throws Exception;
     double[] getErrors();
 }
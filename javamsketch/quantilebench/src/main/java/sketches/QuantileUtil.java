@@ -17,6 +17,34 @@ public class QuantileUtil {
         return expectedQs;
     }
 
+    /**
+     * @param sortedData sorted values, of which the first n are used
+     * @return fraction of the values less than or equal to each x
+     */
+    public static double[] getSortedCDF(double[] sortedData, int n, double[] xs) {
+        int m = xs.length;
+        double[] cdf = new double[m];
+        if (n == 0) {
+            return cdf;
+        }
+        for (int i = 0; i < m; i++) {
+            double x = xs[i];
+            // first index with a value greater than x
+            int lo = 0;
+            int hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedData[mid] <= x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            cdf[i] = (double) lo / n;
+        }
+        return cdf;
+    }
+
     public static QuantileSketch trainAndMerge(
             Supplier<QuantileSketch> sFactory,
             ArrayList<double[]> cellData
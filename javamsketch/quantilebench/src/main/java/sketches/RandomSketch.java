@@ -121,8 +121,9 @@ public class RandomSketch implements QuantileSketch{
     }
 
     @Override
-    public void add(double[] data) {
-        for (double x: data) {
+    public void add(double[] data, int off, int len) {
+        for (int j = off; j < off + len; j++) {
+            double x = data[j];
             // check if the value should be sampled
             if (!shouldSampleNext()) {
                 continue;
@@ -452,6 +453,41 @@ public class RandomSketch implements QuantileSketch{
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) {
+        constructQuantileEntries();
+
+        int n = quantileEntries.size();
+        double[] values = new double[n];
+        double[] cumWeights = new double[n];
+        double totalWeight = 0.0;
+        for (int i = 0; i < n; i++) {
+            QuantileEntry entry = quantileEntries.get(i);
+            totalWeight += entry.weight;
+            values[i] = entry.value;
+            cumWeights[i] = totalWeight;
+        }
+
+        int m = xs.length;
+        double[] cdf = new double[m];
+        for (int i = 0; i < m; i++) {
+            double x = xs[i];
+            // first entry with a value greater than x
+            int lo = 0;
+            int hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] <= x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            cdf[i] = lo == 0 ? 0.0 : cumWeights[lo-1] / totalWeight;
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
@@ -9,8 +9,12 @@ import java.util.Random;
 
 public class ReservoirSamplingSketch implements QuantileSketch {
     private int size;
-    private int numProcessed;
+    private long numProcessed;
     private double[] reservoir;
+    // Once the reservoir is full, the arrival that replaces an entry next
+    // and the weight of Li's Algorithm L, so arrivals in between are skipped
+    private long nextReplace = Long.MAX_VALUE;
+    private double skipWeight;
     private double[] errors;
     private Random r;
 
@@ -44,25 +48,86 @@ public class ReservoirSamplingSketch implements QuantileSketch {
     @Override
     public void initialize() {
         this.reservoir = new double[size];
+        this.numProcessed = 0;
+        this.nextReplace = Long.MAX_VALUE;
     }
 
     @Override
-    // Assumes add is only used one time
-    public void add(double[] data) {
-        numProcessed = data.length;
-
-        if (size > data.length) {
-            System.arraycopy(data, 0, reservoir, 0, data.length);
-            return;
+    public void add(double[] data, int off, int len) {
+        int pos = 0;
+        if (numProcessed < size) {
+            pos = (int) Math.min(len, size - numProcessed);
+            System.arraycopy(data, off, reservoir, (int) numProcessed, pos);
+            numProcessed += pos;
+            if (numProcessed == size) {
+                startSkipping();
+            }
         }
 
-        System.arraycopy(data, 0, reservoir, 0, size);
+        // Continues the reservoir across calls, so data can arrive in chunks
+        long end = numProcessed + (len - pos);
+        while (nextReplace < end) {
+            reservoir[r.nextInt(size)] = data[off + pos + (int)(nextReplace - numProcessed)];
+            skip();
+        }
+        numProcessed = end;
+    }
 
-        for (int i = size; i < data.length; i++) {
-            int j = r.nextInt(i + 1);
-            if (j < size) {
-                reservoir[j] = data[i];
+    /**
+     * Treats values[i] as round(weights[i]) arrivals of the same reservoir,
+     * so weighted and unweighted adds can be mixed. Only the arrivals that
+     * replace an entry are visited, so large weights cost no more than
+     * small ones.
+     */
+    @Override
+    public void add(double[] values, double[] weights) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("values and weights must have the same length");
+        }
+        for (int i = 0; i < values.length; i++) {
+            long count = Math.round(weights[i]);
+            if (count <= 0) {
+                continue;
             }
+            if (numProcessed < size) {
+                int numFill = (int) Math.min(count, size - numProcessed);
+                Arrays.fill(reservoir, (int) numProcessed, (int) numProcessed + numFill, values[i]);
+                numProcessed += numFill;
+                count -= numFill;
+                if (numProcessed == size) {
+                    startSkipping();
+                }
+            }
+            long end = numProcessed + count;
+            while (nextReplace < end) {
+                reservoir[r.nextInt(size)] = values[i];
+                skip();
+            }
+            numProcessed = end;
+        }
+    }
+
+    // https://dl.acm.org/doi/10.1145/198429.198435
+    private void startSkipping() {
+        skipWeight = Math.exp(Math.log(1.0 - r.nextDouble()) / size);
+        nextReplace = numProcessed - 1;
+        advance();
+    }
+
+    /**
+     * Moves on after nextReplace has replaced an entry.
+     */
+    private void skip() {
+        skipWeight *= Math.exp(Math.log(1.0 - r.nextDouble()) / size);
+        advance();
+    }
+
+    private void advance() {
+        double gap = Math.floor(Math.log(1.0 - r.nextDouble()) / Math.log1p(-skipWeight)) + 1;
+        if (gap >= Long.MAX_VALUE - nextReplace) {
+            nextReplace = Long.MAX_VALUE;
+        } else {
+            nextReplace += (long) gap;
         }
     }
 
@@ -74,19 +139,19 @@ public class ReservoirSamplingSketch implements QuantileSketch {
         }
         Arrays.sort(randomDoubles);
 
-        int totalNumProcessed = 0;
-        int maxNumProcessed = 0;
+        long totalNumProcessed = 0;
+        int maxRangeSize = 0;
         ReservoirSamplingSketch rss;
         for (QuantileSketch s : sketches) {
             rss = (ReservoirSamplingSketch)s;
             totalNumProcessed += rss.numProcessed;
-            maxNumProcessed = Math.max(maxNumProcessed, rss.numProcessed);
+            maxRangeSize = (int) Math.max(maxRangeSize, Math.min(rss.size, rss.numProcessed));
         }
 
         int idx = 0;
         int reservoirIdx = 0;
         double threshold = 0.0;
-        int[] range = new int[maxNumProcessed];
+        int[] range = new int[maxRangeSize];
         for (int sketchIndex = startIndex; sketchIndex < endIndex; sketchIndex++) {
             rss = (ReservoirSamplingSketch) sketches.get(sketchIndex);
             threshold += (double)rss.numProcessed / totalNumProcessed;
@@ -96,7 +161,7 @@ public class ReservoirSamplingSketch implements QuantileSketch {
                 sampleSize++;
             }
 
-            int rangeSize = Math.min(rss.size, rss.numProcessed);
+            int rangeSize = (int) Math.min(rss.size, rss.numProcessed);
 
             if (rangeSize < sampleSize) {
                 System.arraycopy(rss.reservoir, 0, reservoir, reservoirIdx, rangeSize);
@@ -133,6 +198,10 @@ public class ReservoirSamplingSketch implements QuantileSketch {
         }
 
         numProcessed = reservoirIdx;
+        nextReplace = Long.MAX_VALUE;
+        if (numProcessed == size) {
+            startSkipping();
+        }
         return this;
     }
 
@@ -149,6 +218,14 @@ public class ReservoirSamplingSketch implements QuantileSketch {
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int n = (int) Math.min(size, numProcessed);
+        double[] data = Arrays.copyOf(reservoir, n);
+        Arrays.sort(data);
+        return QuantileUtil.getSortedCDF(data, n, xs);
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
@@ -249,8 +326,8 @@ public class ReservoirSamplingSketch implements QuantileSketch {
         ReservoirSamplingSketch s = (ReservoirSamplingSketch) sketches.get(0);
         for (; sketchIdx < sketches.size(); sketchIdx++) {
             s = (ReservoirSamplingSketch)sketches.get(sketchIdx);
-            lengthToCopy = Math.min(size - numProcessed, s.numProcessed);
-            System.arraycopy(s.reservoir, 0, reservoir, numProcessed, lengthToCopy);
+            lengthToCopy = (int) Math.min(size - numProcessed, s.numProcessed);
+            System.arraycopy(s.reservoir, 0, reservoir, (int) numProcessed, lengthToCopy);
             weight += (double)Math.min(s.size, s.numProcessed) * lengthToCopy / (s.numProcessed * size);
             numProcessed += lengthToCopy;
             if (numProcessed == size) {
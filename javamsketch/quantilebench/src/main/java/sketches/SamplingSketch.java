@@ -4,6 +4,7 @@ import sampling.ReservoirItemsSketch;
 import sampling.ReservoirItemsUnion;
 import org.apache.commons.math3.util.FastMath;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class SamplingSketch implements QuantileSketch {
@@ -45,9 +46,9 @@ public class SamplingSketch implements QuantileSketch {
     }
 
     @Override
-    public void add(double[] data) {
-        for (double x : data) {
-            this.reservoir.update(x);
+    public void add(double[] data, int off, int len) {
+        for (int j = off; j < off + len; j++) {
+            this.reservoir.update(data[j]);
         }
     }
 
@@ -85,6 +86,17 @@ public class SamplingSketch implements QuantileSketch {
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        Double[] samples = this.reservoir.getSamples();
+        double[] data = new double[samples.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = samples[i];
+        }
+        Arrays.sort(data);
+        return QuantileUtil.getSortedCDF(data, data.length, xs);
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
@@ -47,10 +47,10 @@ public class SparkGKSketch implements QuantileSketch{
     }
 
     @Override
-    public void add(double[] data) {
+    public void add(double[] data, int off, int len) {
         QuantileSummaries curSummary = this.summary;
-        for (double d : data) {
-            curSummary = curSummary.insert(d);
+        for (int j = off; j < off + len; j++) {
+            curSummary = curSummary.insert(data[j]);
         }
         this.summary = curSummary.compress();
     }
@@ -86,6 +86,26 @@ public class SparkGKSketch implements QuantileSketch{
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int m = xs.length;
+        QuantileSummaries.Stats[] sampled = summary.sampled();
+        double count = summary.count();
+        double[] cdf = new double[m];
+        for (int i = 0; i < m; i++) {
+            double x = xs[i];
+            long rank = 0;
+            for (QuantileSummaries.Stats s : sampled) {
+                if (s.value() > x) {
+                    break;
+                }
+                rank += s.g();
+            }
+            cdf[i] = rank / count;
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
@@ -57,9 +57,25 @@ public class TDigestSketch implements QuantileSketch {
     }
 
     @Override
-    public void add(double[] data) {
-        for (double x : data) {
-            this.td.add(x);
+    public void add(double[] data, int off, int len) {
+        for (int j = off; j < off + len; j++) {
+            this.td.add(data[j]);
+        }
+    }
+
+    @Override
+    public void add(double[] values, double[] weights) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("values and weights must have the same length");
+        }
+        for (int i = 0; i < values.length; i++) {
+            // the digest takes int weights, so larger ones are split up
+            long w = Math.round(weights[i]);
+            while (w > 0) {
+                int part = (int) Math.min(w, Integer.MAX_VALUE);
+                this.td.add(values[i], part);
+                w -= part;
+            }
         }
     }
 
@@ -91,6 +107,17 @@ public class TDigestSketch implements QuantileSketch {
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        this.td.compress();
+        int m = xs.length;
+        double[] cdf = new double[m];
+        for (int i = 0; i < m; i++) {
+            cdf[i] = td.cdf(xs[i]);
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
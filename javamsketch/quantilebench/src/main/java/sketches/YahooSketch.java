@@ -58,9 +58,9 @@ public class YahooSketch implements QuantileSketch {
     }
 
     @Override
-    public void add(double[] data) {
-        for (double x : data) {
-            sketch.update(x);
+    public void add(double[] data, int off, int len) {
+        for (int j = off; j < off + len; j++) {
+            sketch.update(data[j]);
         }
     }
 
@@ -95,6 +95,35 @@ public class YahooSketch implements QuantileSketch {
         return quantiles;
     }
 
+    @Override
+    public double[] getCDF(double[] xs) throws Exception {
+        int m = xs.length;
+        double[] cdf = new double[m];
+        if (sketch.isEmpty()) {
+            return cdf;
+        }
+        // The sketch counts values strictly below each split point, which
+        // must be unique and increasing.
+        double[] splitPoints = new double[m];
+        for (int i = 0; i < m; i++) {
+            splitPoints[i] = Math.nextUp(xs[i]);
+        }
+        Arrays.sort(splitPoints);
+        int numSplits = 0;
+        for (int i = 0; i < m; i++) {
+            if (numSplits == 0 || splitPoints[i] != splitPoints[numSplits-1]) {
+                splitPoints[numSplits++] = splitPoints[i];
+            }
+        }
+        splitPoints = Arrays.copyOf(splitPoints, numSplits);
+        double[] sketchCDF = sketch.getCDF(splitPoints);
+        for (int i = 0; i < m; i++) {
+            int idx = Arrays.binarySearch(splitPoints, Math.nextUp(xs[i]));
+            cdf[i] = sketchCDF[idx];
+        }
+        return cdf;
+    }
+
     @Override
     public double[] getErrors() {
         return errors;
@@ -1,5 +1,8 @@
+import io.SyntheticDataSource;
 import org.junit.Test;
+import sketches.QuantileUtil;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -11,6 +14,26 @@ public class AccuracyBenchTest {
         AccuracyBench bench = new AccuracyBench("src/test/resources/acc_bench.json");
         List<Map<String, String>> results = bench.run();
         assertEquals(12*2, results.size());
+        // one latency row per sketch and size
+        List<Map<String, String>> latencyRows = bench.getLatencies().getRows();
+        assertEquals(4, latencyRows.size());
+        assertEquals("20", latencyRows.get(0).get("num_queries"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSyntheticTrueQuantiles() throws Exception {
+        AccuracyBench bench = new AccuracyBench("src/test/resources/acc_bench_synthetic.json");
+        List<Map<String, String>> results = bench.run();
+        assertEquals(3, results.size());
+
+        // true quantiles are those of the sample, kept apart from the distribution's
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        SyntheticDataSource source = SyntheticDataSource.fromName("gauss", 20000, 0);
+        double[] expected = QuantileUtil.getTrueQuantiles(ps, source.get());
+        double[] dist = source.getQuantiles(ps);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(expected[i], Double.parseDouble(results.get(i).get("true_quantile")), 0.0);
+            assertEquals(dist[i], Double.parseDouble(results.get(i).get("dist_quantile")), 0.0);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+import io.SeqDataGrouper;
+import io.SyntheticDataSource;
+import org.junit.Test;
+import sketches.HistogramSketch;
+import sketches.QuantileSketch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CellTrainerTest {
+    @Test
+    public void testStraddlingCells() throws Exception {
+        SyntheticDataSource source = SyntheticDataSource.fromName("gauss", 1003, 0);
+        // cells of 10 straddle chunks of 64
+        source.setBlockSize(64);
+        CellTrainer trainer = new CellTrainer(10, false);
+        ArrayList<QuantileSketch> cellSketches = trainer.train(
+                source,
+                () -> {
+                    QuantileSketch s = new HistogramSketch();
+                    s.setSizeParam(5);
+                    return s;
+                }
+        );
+
+        ArrayList<double[]> cells = new SeqDataGrouper(10).group(source.get());
+        assertEquals(cells.size(), cellSketches.size());
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        for (int i = 0; i < cells.size(); i++) {
+            HistogramSketch expected = new HistogramSketch();
+            expected.setSizeParam(5);
+            expected.initialize();
+            expected.add(cells.get(i));
+            assertArrayEquals(expected.getQuantiles(ps), cellSketches.get(i).getQuantiles(ps), 0.0);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import io.SyntheticDataSource;
+import org.junit.Test;
+import sketches.QuantileUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IngestScalingBenchTest {
+    @Test
+    public void testSimple() throws Exception {
+        IngestScalingBench bench = new IngestScalingBench("src/test/resources/ingest_bench.json");
+        List<Map<String, String>> results = bench.run();
+        // 3 sketches, 2 modes, 2 thread counts
+        assertEquals(12, results.size());
+
+        double[] sorted = SyntheticDataSource.fromName("gauss", 20000, 0).get();
+        Arrays.sort(sorted);
+        for (Map<String, String> row : results) {
+            assertEquals("20000", row.get("n"));
+            // the merged sketch still describes the data it was fed
+            double median = Double.parseDouble(row.get("median"));
+            double rank = QuantileUtil.getSortedCDF(sorted, sorted.length, new double[]{median})[0];
+            assertEquals(row.get("sketch") + " " + row.get("mode"), 0.5, rank, 0.03);
+            assertTrue(Double.parseDouble(row.get("values_per_sec")) > 0);
+            if (row.get("num_threads").equals("1")) {
+                assertEquals(1.0, Double.parseDouble(row.get("scaling_efficiency")), 1e-9);
+            }
+        }
+    }
+}
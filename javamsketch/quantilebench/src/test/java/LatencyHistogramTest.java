@@ -0,0 +1,55 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testExactSmallValues() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            h.record(i);
+        }
+        assertEquals(100, h.getCount());
+        assertEquals(50, h.getValueAtPercentile(.5));
+        assertEquals(99, h.getValueAtPercentile(.99));
+        assertEquals(100, h.getValueAtPercentile(1.0));
+        assertEquals(50.5, h.getMean(), 1e-10);
+    }
+
+    @Test
+    public void testRelativeError() {
+        LatencyHistogram h = new LatencyHistogram(7);
+        Random r = new Random(0);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            // spread over many powers of 2
+            values[i] = (long) Math.exp(r.nextDouble() * 30);
+            h.record(values[i]);
+        }
+        java.util.Arrays.sort(values);
+        double[] ps = {.5, .9, .99, .999};
+        for (double p : ps) {
+            long expected = values[(int) Math.ceil(p * values.length) - 1];
+            long estimate = h.getValueAtPercentile(p);
+            assertTrue(estimate >= expected);
+            assertTrue(estimate <= expected * (1 + 1.0 / 64) + 1);
+        }
+        assertEquals(values[values.length - 1], h.getMax());
+        assertEquals(values[values.length - 1], h.getValueAtPercentile(1.0));
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(10);
+        b.record(Long.MAX_VALUE);
+        a.add(b);
+        assertEquals(2, a.getCount());
+        assertEquals(10, a.getValueAtPercentile(.5));
+        assertEquals(Long.MAX_VALUE, a.getValueAtPercentile(1.0));
+    }
+}
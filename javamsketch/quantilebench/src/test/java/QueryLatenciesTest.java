@@ -0,0 +1,46 @@
+import msolver.struct.MomentStructLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sketches.CMomentSketch;
+import sketches.HistogramSketch;
+import sketches.QuantileSketch;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class QueryLatenciesTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSlowest() throws Exception {
+        QueryLatencies latencies = new QueryLatencies(2);
+        QuantileSketch histogram = new HistogramSketch();
+        for (int i = 0; i < 5; i++) {
+            CMomentSketch s = new CMomentSketch(1e-9);
+            s.setSizeParam(5);
+            s.initialize();
+            s.add(new double[]{1, 2, 3, i + 4});
+            latencies.record("data", s, 5, 100 * (i % 3));
+            latencies.record("data", histogram, 10, 1000);
+        }
+        List<java.util.Map<String, String>> rows = latencies.getRows();
+        assertEquals(2, rows.size());
+        assertEquals("5", rows.get(0).get("num_queries"));
+        assertEquals("200", rows.get(0).get("query_max"));
+
+        File f = new File(folder.getRoot(), "slowest.log");
+        latencies.writeSlowest(f.getPath());
+        List<MomentStructLog.Entry> entries = MomentStructLog.read(f.getPath());
+        // latencies were 0, 100, 200, 0, 100, so the slowest came from i=2
+        assertEquals(2, entries.size());
+        assertEquals(200, entries.get(0).solveNanos);
+        assertEquals(100, entries.get(1).solveNanos);
+        assertEquals(6.0, entries.get(0).ms.max, 0.0);
+        assertArrayEquals(new double[]{4, 12, 50, 252, 1394}, entries.get(0).ms.powerSums, 0.0);
+    }
+}
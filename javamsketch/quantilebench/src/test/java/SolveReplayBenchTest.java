@@ -0,0 +1,51 @@
+import msolver.data.ExponentialData;
+import msolver.data.MomentData;
+import msolver.struct.MomentStruct;
+import msolver.struct.MomentStructLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SolveReplayBenchTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplay() throws Exception {
+        MomentData data = new ExponentialData();
+        MomentStruct ms = new MomentStruct();
+        ms.min = data.getMin();
+        ms.max = data.getMax();
+        ms.logMin = data.getLogMin();
+        ms.logMax = data.getLogMax();
+        ms.powerSums = data.getPowerSums(7);
+        ms.logSums = data.getLogSums(1);
+        File log = new File(folder.getRoot(), "slow.log");
+        MomentStructLog.write(log.getPath(), Collections.singletonList(
+                new MomentStructLog.Entry(ms, 1e-9, 5000000)
+        ));
+
+        File conf = new File(folder.getRoot(), "replay.json");
+        try (PrintWriter out = new PrintWriter(conf)) {
+            out.println("{\"testName\": \"replay_test\", \"logFile\": \""
+                    + log.getPath() + "\", \"numSolveTrials\": 1, \"numWarmupTrials\": 0}");
+        }
+        SolveReplayBench bench = new SolveReplayBench(conf.getPath());
+        List<Map<String, String>> results = bench.run();
+        assertEquals(3, results.size());
+        for (Map<String, String> row : results) {
+            assertEquals("5000000", row.get("original_time"));
+            assertTrue(Double.parseDouble(row.get("max_quantile_diff")) < 1e-2);
+        }
+        assertEquals("true", results.get(0).get("converged"));
+    }
+}
@@ -0,0 +1,57 @@
+package io;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ChunkedDataSourceTest {
+    private double[] readAll(ChunkedDataSource source) throws Exception {
+        double[] all = new double[0];
+        DataSlice chunk;
+        while ((chunk = source.next()) != null) {
+            int n = all.length;
+            all = Arrays.copyOf(all, n + chunk.length);
+            System.arraycopy(chunk.data, chunk.offset, all, n, chunk.length);
+        }
+        return all;
+    }
+
+    @Test
+    public void testCSV() throws Exception {
+        SimpleCSVDataSource s = new SimpleCSVDataSource("src/test/resources/test.csv", 1);
+        s.setChunkSize(4);
+        double[] expected = s.get();
+        assertArrayEquals(expected, readAll(s), 0.0);
+        s.reset();
+        assertArrayEquals(expected, readAll(s), 0.0);
+        s.close();
+    }
+
+    @Test
+    public void testGrouped() throws Exception {
+        GroupedCSVDataSource s = new GroupedCSVDataSource("src/test/resources/grouped.csv");
+        ArrayList<double[]> groups = s.get();
+        for (double[] group : groups) {
+            DataSlice chunk = s.next();
+            assertArrayEquals(group, chunk.toArray(), 0.0);
+        }
+        assertNull(s.next());
+        s.close();
+    }
+
+    @Test
+    public void testGaussian() throws Exception {
+        SyntheticDataSource s = SyntheticDataSource.fromName("gauss", 1000, 0);
+        s.setBlockSize(300);
+        double[] expected = s.get();
+        assertEquals(1000, expected.length);
+        assertArrayEquals(expected, readAll(s), 0.0);
+        s.reset();
+        assertArrayEquals(expected, readAll(s), 0.0);
+    }
+}
@@ -0,0 +1,41 @@
+package io;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DoubleParserTest {
+    private static double parse(String s) {
+        ByteBuffer buf = ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+        return DoubleParser.parse(buf, 0, buf.limit());
+    }
+
+    @Test
+    public void testFormats() {
+        String[] inputs = {
+                "0", "-0.0", "1", "+2.5", " 3.25 ", "10\r", ".5", "5.", "1e3", "1.5E-7",
+                "123456789012345", "1234567890123456789", "0.1", "-3.14159",
+                "1e23", "9007199254740993", "1e-400", "1e400", "NaN", "-Infinity",
+                "0.000000000000000000000000000001"
+        };
+        for (String s : inputs) {
+            assertEquals(s, Double.parseDouble(s), parse(s), 0.0);
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        Random r = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            double x = (r.nextDouble() - .5) * Math.pow(10, r.nextInt(40) - 20);
+            String full = Double.toString(x);
+            assertEquals(full, x, parse(full), 0.0);
+            String shortForm = String.format("%.6f", x);
+            assertEquals(shortForm, Double.parseDouble(shortForm), parse(shortForm), 0.0);
+        }
+    }
+}
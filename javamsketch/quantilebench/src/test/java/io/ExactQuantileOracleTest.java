@@ -0,0 +1,149 @@
+package io;
+
+import data.TestDataSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sketches.QuantileUtil;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ExactQuantileOracleTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Double> ps = Arrays.asList(
+            0.0, 1e-6, 0.001, 0.01, 0.1, 0.25, 1.0/3, 0.5, 0.7, 0.9, 0.99, 0.999, 1.0
+    );
+
+    private static double[] getData(int n, long seed) {
+        Random r = new Random(seed);
+        double[] data = new double[n];
+        for (int i = 0; i < n; i++) {
+            // include plenty of ties
+            data[i] = r.nextInt(3) == 0 ? Math.floor(r.nextGaussian() * 4) : r.nextGaussian();
+        }
+        return data;
+    }
+
+    private static double[] getTrueQuantiles(double[] data) {
+        // Percentile does not accept p = 0
+        List<Double> positive = new ArrayList<>(ps);
+        positive.set(0, Double.MIN_VALUE);
+        return QuantileUtil.getTrueQuantiles(positive, data);
+    }
+
+    @Test
+    public void testOracle() throws Exception {
+        double[] data = getData(10007, 0);
+        File out = folder.newFile("data.sorted.bin");
+        ExactQuantileOracle oracle = ExactQuantileOracle.forData(data, out.getPath());
+        assertEquals(data.length, oracle.size());
+        assertArrayEquals(getTrueQuantiles(data), oracle.getQuantiles(ps), 0.0);
+
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        double[] xs = {-100.0, -1.0, 0.0, 0.5, 2.0, 100.0};
+        assertArrayEquals(
+                QuantileUtil.getSortedCDF(sorted, sorted.length, xs),
+                oracle.getCDF(xs),
+                0.0
+        );
+        oracle.close();
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        double[] data = TestDataSource.getUniform(1000);
+        File csv = folder.newFile("data.csv");
+        try (PrintWriter w = new PrintWriter(csv)) {
+            w.println("x,y");
+            for (double x : data) {
+                w.println("1," + x);
+            }
+        }
+        String cacheFile = ExactQuantileOracle.getCacheFile(csv.getPath(), 1);
+        ExactQuantileOracle oracle = ExactQuantileOracle.forFile(csv.getPath(), 1);
+        assertTrue(new File(cacheFile).exists());
+        assertArrayEquals(getTrueQuantiles(data), oracle.getQuantiles(ps), 0.0);
+        oracle.close();
+
+        // a fresh cache is mapped rather than rebuilt
+        long modified = new File(cacheFile).lastModified();
+        new File(cacheFile).setLastModified(modified + 10000);
+        oracle = ExactQuantileOracle.forFile(csv.getPath(), 1);
+        assertEquals(modified + 10000, new File(cacheFile).lastModified());
+        assertEquals(1000, oracle.size());
+        oracle.close();
+
+        // a stale cache is rebuilt through a temporary file renamed into place
+        try (RandomAccessFile f = new RandomAccessFile(cacheFile, "rw")) {
+            f.setLength(BinaryColumnFormat.HEADER_SIZE + 8);
+        }
+        new File(cacheFile).setLastModified(0);
+        oracle = ExactQuantileOracle.forFile(csv.getPath(), 1);
+        assertEquals(1000, oracle.size());
+        oracle.close();
+        assertEquals(2, folder.getRoot().list().length);
+
+        File bin = folder.newFile("data.bin");
+        BinaryColumnFormat.write(bin.getPath(), data);
+        oracle = ExactQuantileOracle.forFile(bin.getPath(), 0);
+        assertArrayEquals(getTrueQuantiles(data), oracle.getQuantiles(ps), 0.0);
+        oracle.close();
+    }
+
+    @Test
+    public void testSelect() throws Exception {
+        for (int n : new int[]{1, 2, 31, 33, 1000, 100003}) {
+            double[] data = getData(n, n);
+            double[] copy = data.clone();
+            assertArrayEquals(getTrueQuantiles(data), ExactQuantileOracle.selectInPlace(copy, ps), 0.0);
+        }
+
+        // sorted and constant inputs
+        double[] sorted = TestDataSource.getUniform(5000);
+        Arrays.sort(sorted);
+        assertArrayEquals(getTrueQuantiles(sorted), ExactQuantileOracle.selectInPlace(sorted.clone(), ps), 0.0);
+        double[] constant = new double[5000];
+        Arrays.fill(constant, 3.0);
+        assertArrayEquals(getTrueQuantiles(constant), ExactQuantileOracle.selectInPlace(constant, ps), 0.0);
+
+        double[] empty = ExactQuantileOracle.selectInPlace(new double[0], ps);
+        assertTrue(Double.isNaN(empty[0]));
+    }
+
+    @Test
+    public void testGroups() throws Exception {
+        double[] data = getData(20000, 1);
+        List<DataSlice> cells = new ArrayList<>();
+        for (int i = 0; i < data.length; i += 200) {
+            cells.add(new DataSlice(data, i, 200));
+        }
+        List<List<DataSlice>> groups = new ArrayList<>();
+        for (int numCells : new int[]{1, 10, 37, 100}) {
+            groups.add(cells.subList(0, numCells));
+        }
+        // a cube style query over cells that are not adjacent
+        groups.add(Arrays.asList(cells.get(3), cells.get(50), cells.get(99)));
+
+        double[] original = data.clone();
+        List<double[]> qs = ExactQuantileOracle.selectGroupQuantiles(groups, ps, 3);
+        assertArrayEquals(original, data, 0.0);
+        assertEquals(groups.size(), qs.size());
+        for (int i = 0; i < groups.size(); i++) {
+            double[] values = new double[0];
+            for (DataSlice cell : groups.get(i)) {
+                int len = values.length;
+                values = Arrays.copyOf(values, len + cell.length);
+                System.arraycopy(cell.data, cell.offset, values, len, cell.length);
+            }
+            assertArrayEquals(getTrueQuantiles(values), qs.get(i), 0.0);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io;
+
+import data.TestDataSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sketches.CMomentSketch;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MappedDataSourceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConvertCSV() throws Exception {
+        File out = folder.newFile("test.bin");
+        long count = BinaryColumnFormat.convertCSV("src/test/resources/test.csv", 1, true, out.getPath());
+
+        double[] expected = new SimpleCSVDataSource("src/test/resources/test.csv", 1).get();
+        assertEquals(expected.length, count);
+        MappedDataSource s = new MappedDataSource(out.getPath());
+        assertArrayEquals(expected, s.get(), 0.0);
+    }
+
+    @Test
+    public void testWindows() throws Exception {
+        double[] data = TestDataSource.getUniform(10001);
+        File out = folder.newFile("uniform.bin");
+        BinaryColumnFormat.write(out.getPath(), data);
+
+        MappedDataSource s = new MappedDataSource(out.getPath());
+        s.setWindowSize(999);
+        s.setChunkSize(250);
+        assertEquals(data.length, s.size());
+        assertArrayEquals(data, s.get(), 0.0);
+
+        double[] part = new double[2000];
+        s.read(1500, part, 0, part.length);
+        assertArrayEquals(Arrays.copyOfRange(data, 1500, 3500), part, 0.0);
+
+        CMomentSketch mapped = new CMomentSketch(1e-10);
+        mapped.setSizeParam(7);
+        mapped.initialize();
+        s.addTo(mapped);
+        CMomentSketch direct = new CMomentSketch(1e-10);
+        direct.setSizeParam(7);
+        direct.initialize();
+        direct.add(data);
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        assertArrayEquals(direct.getQuantiles(ps), mapped.getQuantiles(ps), 1e-9);
+    }
+}
@@ -0,0 +1,46 @@
+package io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ParallelCSVDataSourceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesSimple() throws Exception {
+        for (int column = 0; column < 3; column++) {
+            double[] expected = new SimpleCSVDataSource("src/test/resources/test.csv", column).get();
+            ParallelCSVDataSource s = new ParallelCSVDataSource("src/test/resources/test.csv", column);
+            s.setNumThreads(3);
+            assertArrayEquals(expected, s.get(), 0.0);
+        }
+    }
+
+    @Test
+    public void testManyRanges() throws Exception {
+        File f = folder.newFile("data.csv");
+        Random r = new Random(0);
+        try (PrintWriter out = new PrintWriter(f)) {
+            out.println("a,b");
+            for (int i = 0; i < 10000; i++) {
+                double x = r.nextGaussian() * 1000;
+                out.print(i + "," + (i % 2 == 0 ? String.format("%.3f", x) : Double.toString(x)));
+                out.print(i % 3 == 0 ? "\r\n" : "\n");
+            }
+        }
+        double[] expected = new SimpleCSVDataSource(f.getPath(), 1).get();
+        for (int numThreads : new int[]{1, 4, 7}) {
+            ParallelCSVDataSource s = new ParallelCSVDataSource(f.getPath(), 1);
+            s.setNumThreads(numThreads);
+            assertArrayEquals(expected, s.get(), 0.0);
+        }
+    }
+}
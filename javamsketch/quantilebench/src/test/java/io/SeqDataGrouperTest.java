@@ -5,7 +5,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class SeqDataGrouperTest {
     @Test
@@ -18,4 +20,16 @@ public class SeqDataGrouperTest {
         assertEquals(3.0, cells.get(11)[9], 0.0);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSlices() {
+        double[] data = TestDataSource.getUniform(-2, 3, 1000);
+        SeqDataGrouper g = new SeqDataGrouper(90);
+        ArrayList<double[]> cells = g.group(data);
+        ArrayList<DataSlice> slices = g.groupSlices(data);
+        assertEquals(cells.size(), slices.size());
+        for (int i = 0; i < cells.size(); i++) {
+            assertSame(data, slices.get(i).data);
+            assertArrayEquals(cells.get(i), slices.get(i).toArray(), 0.0);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class SyntheticDataSourceTest {
+    @Test
+    public void testDeterministic() throws Exception {
+        SyntheticDataSource s = SyntheticDataSource.fromName("lognormal", 10007, 42);
+        s.setBlockSize(1000);
+        s.setNumThreads(4);
+        double[] parallel = s.get();
+        s.setNumThreads(1);
+        assertArrayEquals(parallel, s.get(), 0.0);
+
+        double[] chunked = new double[parallel.length];
+        int n = 0;
+        DataSlice chunk;
+        while ((chunk = s.next()) != null) {
+            System.arraycopy(chunk.data, chunk.offset, chunked, n, chunk.length);
+            n += chunk.length;
+        }
+        assertEquals(parallel.length, n);
+        assertArrayEquals(parallel, chunked, 0.0);
+        s.reset();
+        assertArrayEquals(Arrays.copyOf(parallel, 1000), s.next().toArray(), 0.0);
+        s.close();
+
+        SyntheticDataSource other = SyntheticDataSource.fromName("lognormal", 10007, 43);
+        other.setBlockSize(1000);
+        assertFalse(Arrays.equals(parallel, other.get()));
+    }
+
+    @Test
+    public void testSeedsIndependent() throws Exception {
+        SyntheticDataSource s = SyntheticDataSource.fromName("gauss", 4000, 42);
+        s.setBlockSize(1000);
+        double[] data = s.get();
+        // neighbouring seeds must not reuse each other's blocks at any offset
+        for (long seed = 40; seed <= 44; seed++) {
+            if (seed == 42) {
+                continue;
+            }
+            SyntheticDataSource other = SyntheticDataSource.fromName("gauss", 4000, seed);
+            other.setBlockSize(1000);
+            double[] otherData = other.get();
+            for (int b = 0; b < 4; b++) {
+                for (int ob = 0; ob < 4; ob++) {
+                    assertFalse(Arrays.equals(
+                            Arrays.copyOfRange(data, b * 1000, (b + 1) * 1000),
+                            Arrays.copyOfRange(otherData, ob * 1000, (ob + 1) * 1000)
+                    ));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReferenceQuantiles() throws Exception {
+        List<Double> ps = Arrays.asList(.01, .1, .5, .9, .99);
+        SyntheticDataSource[] sources = {
+                SyntheticDataSource.fromName("gauss", 100000, 0),
+                SyntheticDataSource.fromName("lognormal", 100000, 0),
+                SyntheticDataSource.fromName("exponential", 100000, 0),
+                SyntheticDataSource.fromName("pareto:1.5", 100000, 0),
+                new SyntheticDataSource.OutlierMixture(
+                        SyntheticDataSource.fromName("gauss", 100000, 0),
+                        .05, 100, 10
+                ),
+                SyntheticDataSource.fromName("gauss_outliers:0.02:50", 100000, 0),
+        };
+        for (SyntheticDataSource s : sources) {
+            double[] data = s.get();
+            Arrays.sort(data);
+            double[] qs = s.getQuantiles(ps);
+            for (int i = 0; i < qs.length; i++) {
+                assertEquals(ps.get(i), s.cdf(qs[i]), 1e-6);
+                double empirical = data[(int)(ps.get(i) * data.length)];
+                assertEquals(s.getName(), ps.get(i), s.cdf(empirical), .005);
+            }
+        }
+    }
+
+    @Test
+    public void testDiscrete() throws Exception {
+        SyntheticDataSource s = SyntheticDataSource.fromName("discrete:10", 10000, 0);
+        assertEquals(2.0, s.quantile(.3), 0.0);
+        assertEquals(.3, s.cdf(2.0), 1e-10);
+        assertEquals(0.0, s.quantile(0.0), 0.0);
+        assertEquals(9.0, s.quantile(1.0), 0.0);
+        for (double x : s.get()) {
+            assertEquals(Math.floor(x), x, 0.0);
+            assertEquals(4.5, x, 4.5);
+        }
+        assertEquals("gauss_outliers", SyntheticDataSource.fromName("gauss_outliers", 10, 0).getName());
+        assertNull(SyntheticDataSource.fromName("data.csv", 10, 0));
+    }
+
+    @Test(expected = IOException.class, timeout = 10000)
+    public void testSampleFailure() throws Exception {
+        // every block throws, which must surface instead of hanging get()
+        SyntheticDataSource s = SyntheticDataSource.fromName("discrete:0", 10000, 0);
+        s.setBlockSize(1000);
+        s.setNumThreads(4);
+        s.get();
+    }
+}
@@ -0,0 +1,96 @@
+package pipeline;
+
+import io.GroupedCSVDataSource;
+import io.SeqDataGrouper;
+import io.SimpleCSVDataSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sketches.HistogramSketch;
+import sketches.QuantileSketch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CSVSketchPipelineTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Supplier<QuantileSketch> histograms = () -> {
+        QuantileSketch s = new HistogramSketch();
+        s.setSizeParam(5);
+        return s;
+    };
+
+    private void assertSameCells(List<double[]> cells, List<QuantileSketch> cellSketches) throws Exception {
+        assertEquals(cells.size(), cellSketches.size());
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        for (int i = 0; i < cells.size(); i++) {
+            QuantileSketch expected = histograms.get();
+            expected.initialize();
+            expected.add(cells.get(i));
+            assertArrayEquals(expected.getQuantiles(ps), cellSketches.get(i).getQuantiles(ps), 0.0);
+        }
+    }
+
+    @Test
+    public void testColumn() throws Exception {
+        File f = folder.newFile("data.csv");
+        Random r = new Random(0);
+        try (PrintWriter out = new PrintWriter(f)) {
+            out.print("a,b\n");
+            for (int i = 0; i < 10000; i++) {
+                out.print(i + "," + String.format("%.4f", r.nextGaussian()));
+                // no newline after the last row
+                if (i < 9999) {
+                    out.print(i % 3 == 0 ? "\r\n" : "\n");
+                }
+            }
+        }
+
+        CSVSketchPipeline pipeline = new CSVSketchPipeline(f.getPath(), 1);
+        pipeline.setCellSize(37);
+        pipeline.setCellsPerBatch(5);
+        pipeline.setNumWorkers(3);
+        pipeline.setQueueCapacity(2);
+        ArrayList<QuantileSketch> cellSketches = pipeline.run(histograms);
+        assertEquals(10000, pipeline.getNumRows());
+
+        double[] data = new SimpleCSVDataSource(f.getPath(), 1).get();
+        assertSameCells(new SeqDataGrouper(37).group(data), cellSketches);
+    }
+
+    @Test
+    public void testGrouped() throws Exception {
+        CSVSketchPipeline pipeline = new CSVSketchPipeline("src/test/resources/grouped.csv", 0);
+        pipeline.setGrouped(true);
+        pipeline.setNumWorkers(2);
+        ArrayList<QuantileSketch> cellSketches = pipeline.run(histograms);
+
+        ArrayList<double[]> groups = new GroupedCSVDataSource("src/test/resources/grouped.csv").get();
+        assertSameCells(groups, cellSketches);
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadValue() throws Exception {
+        File f = folder.newFile("bad.csv");
+        try (PrintWriter out = new PrintWriter(f)) {
+            out.print("a\n1\n2\nbad\n4\n");
+        }
+        CSVSketchPipeline pipeline = new CSVSketchPipeline(f.getPath(), 0);
+        pipeline.setCellSize(1);
+        pipeline.setCellsPerBatch(1);
+        pipeline.setNumWorkers(2);
+        pipeline.setQueueCapacity(1);
+        pipeline.run(histograms);
+    }
+}
@@ -40,4 +40,26 @@ public class ApproximateHistogramSketchTest {
         assertArrayEquals(expectedQs, qs2, 10.0);
         System.out.println(Arrays.toString(qs2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCDF() throws Exception {
+        ApproximateHistogramSketch s = new ApproximateHistogramSketch();
+        s.setSizeParam(100);
+        s.initialize();
+
+        // more distinct values than bins, so the bins are merged and the
+        // CDF is interpolated within them
+        double[] data = TestDataSource.getUniform(10001);
+        s.add(data);
+        double[] xs = {-1.0, 1000.0, 5000.0, 9000.0, 10001.0};
+        assertArrayEquals(new double[]{0.0, .1, .5, .9, 1.0}, s.getCDF(xs), .02);
+
+        // fewer distinct values than bins, where each value keeps its own bin
+        ApproximateHistogramSketch exact = new ApproximateHistogramSketch();
+        exact.setSizeParam(100);
+        exact.initialize();
+        exact.add(new double[]{1.0, 1.0, 2.0, 3.0});
+        double[] cdf = exact.getCDF(new double[]{0.0, 3.0, 4.0});
+        assertArrayEquals(new double[]{0.0, 1.0, 1.0}, cdf, 1e-6);
+    }
+}
@@ -4,8 +4,13 @@ import data.TestDataSource;
 import io.DataGrouper;
 import io.SeqDataGrouper;
 import msolver.MathUtil;
+import msolver.SlowSolveCapture;
+import msolver.struct.MomentStructLog;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -13,6 +18,33 @@ import java.util.List;
 import static org.junit.Assert.*;
 
 public class CMomentSketchTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSolveCapture() throws Exception {
+        CMomentSketch ms = new CMomentSketch(1e-9);
+        ms.setSizeParam(7);
+        ms.initialize();
+        ms.add(TestDataSource.getUniform(1, 2, 1000));
+
+        File f = new File(folder.getRoot(), "slow.log");
+        SlowSolveCapture capture = new SlowSolveCapture(f.getPath(), 0);
+        ms.setSolveCapture(capture);
+        double[] qs = ms.getQuantiles(Arrays.asList(.1, .5, .9));
+        capture.close();
+
+        List<MomentStructLog.Entry> entries = MomentStructLog.read(f.getPath());
+        assertEquals(1, entries.size());
+        assertArrayEquals(ms.getMomentStruct().powerSums, entries.get(0).ms.powerSums, 0.0);
+
+        // replaying the captured input gives the same answer
+        CMomentSketch replayed = new CMomentSketch(entries.get(0).tolerance);
+        MomentStructLog.Entry e = entries.get(0);
+        replayed.setStats(e.ms.min, e.ms.max, e.ms.logMin, e.ms.logMax, e.ms.powerSums, e.ms.logSums);
+        assertArrayEquals(qs, replayed.getQuantiles(Arrays.asList(.1, .5, .9)), 0.0);
+    }
+
     @Test
     public void testDiscrete() throws Exception {
         CMomentSketch ms = new CMomentSketch(1e-10);
@@ -116,4 +148,126 @@ public class CMomentSketchTest {
         assertArrayEquals(expectedQs, qs, 0.1);
         assertTrue(ms.getErrors()[0] < .2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAsyncErrors() throws Exception {
+        CMomentSketch ms = new CMomentSketch(1e-9);
+        ms.setSizeParam(9);
+        ms.initialize();
+        ms.setCalcError(true);
+        double[] data = TestDataSource.getUniform(0,1,10001);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = Math.exp(data[i]);
+        }
+        ms.add(data);
+
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        double[] qs = ms.getQuantiles(ps);
+        double[] errors = ms.getErrors();
+
+        CMomentSketch.QuantileEstimate estimate = ms.getQuantilesAsync(ps);
+        assertArrayEquals(qs, estimate.quantiles, 0.0);
+        assertArrayEquals(errors, estimate.errors.get(), 0.0);
+        // cached while the sketch is unchanged
+        assertSame(estimate.errors, ms.getQuantilesAsync(ps).errors);
+
+        ms.add(new double[]{2.0});
+        CMomentSketch.QuantileEstimate updated = ms.getQuantilesAsync(ps);
+        assertNotSame(estimate.errors, updated.errors);
+        assertEquals(3, updated.errors.get().length);
+    }
+
+    @Test
+    public void testCDF() throws Exception {
+        CMomentSketch s = new CMomentSketch(1e-10);
+        s.setSizeParam(11);
+        s.initialize();
+
+        double[] data = TestDataSource.getUniform(10001);
+        s.add(data);
+
+        double[] xs = {-1.0, 1000.0, 5000.0, 9000.0, 10001.0};
+        double[] cdf = s.getCDF(xs);
+        double[] expected = {0.0, .1, .5, .9, 1.0};
+        assertArrayEquals(expected, cdf, .01);
+    }
+
+    @Test
+    public void testWeighted() throws Exception {
+        // value i occurs i+1 times
+        int n = 101;
+        double[] values = new double[n];
+        double[] weights = new double[n];
+        double[] expanded = new double[n*(n+1)/2];
+        int idx = 0;
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+            weights[i] = i + 1;
+            for (int j = 0; j <= i; j++) {
+                expanded[idx++] = i;
+            }
+        }
+
+        CMomentSketch weighted = new CMomentSketch(1e-10);
+        weighted.setSizeParam(7);
+        weighted.initialize();
+        weighted.add(values, weights);
+
+        CMomentSketch plain = new CMomentSketch(1e-10);
+        plain.setSizeParam(7);
+        plain.initialize();
+        plain.add(expanded);
+
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        assertArrayEquals(plain.getQuantiles(ps), weighted.getQuantiles(ps), 1e-6);
+    }
+
+    @Test
+    public void testAddRange() throws Exception {
+        double[] data = TestDataSource.getUniform(10001);
+        CMomentSketch ranged = new CMomentSketch(1e-10);
+        ranged.setSizeParam(7);
+        ranged.initialize();
+        ranged.add(data, 1000, 5000);
+
+        CMomentSketch copied = new CMomentSketch(1e-10);
+        copied.setSizeParam(7);
+        copied.initialize();
+        copied.add(Arrays.copyOfRange(data, 1000, 6000));
+
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        assertArrayEquals(copied.getQuantiles(ps), ranged.getQuantiles(ps), 0.0);
+    }
+
+    @Test
+    public void testIntegerAdd() throws Exception {
+        int n = 10001;
+        int[] intData = new int[n];
+        long[] longData = new long[n];
+        double[] data = new double[n];
+        for (int i = 0; i < n; i++) {
+            intData[i] = i * 1000;
+            longData[i] = i * 1000L;
+            data[i] = i * 1000.0;
+        }
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+
+        CMomentSketch ds = new CMomentSketch(1e-10);
+        ds.setSizeParam(7);
+        ds.initialize();
+        ds.add(data);
+        double[] expected = ds.getQuantiles(ps);
+
+        CMomentSketch is = new CMomentSketch(1e-10);
+        is.setSizeParam(7);
+        is.initialize();
+        is.add(intData);
+        assertArrayEquals(expected, is.getQuantiles(ps), 1e-3);
+
+        CMomentSketch ls = new CMomentSketch(1e-10);
+        ls.setSizeParam(7);
+        ls.initialize();
+        ls.add(longData);
+        assertArrayEquals(expected, ls.getQuantiles(ps), 1e-3);
+    }
+}
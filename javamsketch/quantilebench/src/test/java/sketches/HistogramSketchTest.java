@@ -8,6 +8,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
@@ -60,4 +61,172 @@ public class HistogramSketchTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCDF() throws Exception {
+        HistogramSketch s = new HistogramSketch();
+        s.setSizeParam(10);
+        s.initialize();
+
+        double[] data = TestDataSource.getUniform(10001);
+        s.add(data);
+
+        double[] xs = {-1.0, 1000.0, 5000.0, 9000.0, 10001.0};
+        double[] cdf = s.getCDF(xs);
+        double[] expected = {0.0, .1, .5, .9, 1.0};
+        assertArrayEquals(expected, cdf, .05);
+    }
+
+    @Test
+    public void testWeighted() throws Exception {
+        // value i occurs i+1 times
+        int n = 101;
+        double[] values = new double[n];
+        double[] weights = new double[n];
+        double[] expanded = new double[n*(n+1)/2];
+        int idx = 0;
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+            weights[i] = i + 1;
+            for (int j = 0; j <= i; j++) {
+                expanded[idx++] = i;
+            }
+        }
+
+        HistogramSketch weighted = new HistogramSketch();
+        weighted.setSizeParam(10);
+        weighted.initialize();
+        weighted.add(values, weights);
+
+        HistogramSketch plain = new HistogramSketch();
+        plain.setSizeParam(10);
+        plain.initialize();
+        plain.add(expanded);
+
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        assertArrayEquals(plain.getQuantiles(ps), weighted.getQuantiles(ps), 0.0);
+
+        // later weighted adds widen the existing buckets like plain adds do
+        double[] shifted = new double[n];
+        double[] expandedShifted = new double[expanded.length];
+        for (int i = 0; i < n; i++) {
+            shifted[i] = values[i] + 150;
+        }
+        for (int i = 0; i < expanded.length; i++) {
+            expandedShifted[i] = expanded[i] + 150;
+        }
+        weighted.add(shifted, weights);
+        plain.add(expandedShifted);
+        assertArrayEquals(plain.getQuantiles(ps), weighted.getQuantiles(ps), 0.0);
+    }
+
+    @Test
+    public void testPrimitiveAdd() throws Exception {
+        int n = 10001;
+        int[] intData = new int[n];
+        float[] floatData = new float[n];
+        for (int i = 0; i < n; i++) {
+            intData[i] = i;
+            floatData[i] = i;
+        }
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+
+        HistogramSketch ds = new HistogramSketch();
+        ds.setSizeParam(10);
+        ds.initialize();
+        ds.add(TestDataSource.getUniform(n));
+        double[] expected = ds.getQuantiles(ps);
+
+        HistogramSketch is = new HistogramSketch();
+        is.setSizeParam(10);
+        is.initialize();
+        is.add(intData);
+        assertArrayEquals(expected, is.getQuantiles(ps), 0.0);
+
+        HistogramSketch fs = new HistogramSketch();
+        fs.setSizeParam(10);
+        fs.initialize();
+        fs.add(floatData);
+        assertArrayEquals(expected, fs.getQuantiles(ps), 0.0);
+
+        // later primitive adds widen the buckets like double adds do
+        HistogramSketch chunked = new HistogramSketch();
+        chunked.setSizeParam(10);
+        chunked.initialize();
+        chunked.add(Arrays.copyOfRange(intData, 0, 1000));
+        chunked.add(Arrays.copyOfRange(floatData, 1000, 5000));
+        long[] longData = new long[n - 5000];
+        for (int i = 0; i < longData.length; i++) {
+            longData[i] = 5000 + i;
+        }
+        chunked.add(longData);
+        HistogramSketch dchunked = new HistogramSketch();
+        dchunked.setSizeParam(10);
+        dchunked.initialize();
+        double[] data = TestDataSource.getUniform(n);
+        dchunked.add(data, 0, 1000);
+        dchunked.add(data, 1000, 4000);
+        dchunked.add(data, 5000, n - 5000);
+        assertArrayEquals(dchunked.getQuantiles(ps), chunked.getQuantiles(ps), 0.0);
+    }
+
+    @Test
+    public void testChunkedAdd() throws Exception {
+        double[] data = TestDataSource.getUniform(100000);
+        HistogramSketch whole = new HistogramSketch();
+        whole.setSizeParam(100);
+        whole.initialize();
+        whole.add(data);
+
+        // later chunks mostly fall outside the buckets chosen so far
+        HistogramSketch chunked = new HistogramSketch();
+        chunked.setSizeParam(100);
+        chunked.initialize();
+        for (int start = 0; start < data.length; start += 4096) {
+            chunked.add(data, start, Math.min(4096, data.length - start));
+        }
+
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        double[] expectedQs = QuantileUtil.getTrueQuantiles(ps, data);
+        assertArrayEquals(whole.getQuantiles(ps), chunked.getQuantiles(ps), 0.0);
+        assertArrayEquals(expectedQs, chunked.getQuantiles(ps), 1024.0);
+
+        // chunks inside the current range reuse the buckets as they are
+        for (int start = 0; start < data.length; start += 4096) {
+            chunked.add(data, start, Math.min(4096, data.length - start));
+        }
+        assertArrayEquals(whole.getQuantiles(ps), chunked.getQuantiles(ps), 0.0);
+    }
+
+    @Test
+    public void testSingleValueAdds() throws Exception {
+        double[] data = TestDataSource.getGaussian(new Random(0), 5000);
+        HistogramSketch hs = new HistogramSketch();
+        hs.setSizeParam(100);
+        hs.initialize();
+        for (double x : data) {
+            hs.add(new double[]{x});
+        }
+
+        List<Double> ps = Arrays.asList(.01, .1, .5, .9, .99);
+        double[] expectedQs = QuantileUtil.getTrueQuantiles(ps, data);
+        assertArrayEquals(expectedQs, hs.getQuantiles(ps), 0.125);
+        assertArrayEquals(new double[]{1.0}, hs.getCDF(new double[]{100.0}), 0.0);
+    }
+
+    @Test
+    public void testReinitialize() throws Exception {
+        double[] data = TestDataSource.getUniform(10001);
+        HistogramSketch hs = new HistogramSketch();
+        hs.setSizeParam(10);
+        hs.initialize();
+        hs.add(data);
+
+        // buckets are chosen afresh rather than reused from the first add
+        hs.initialize();
+        hs.add(data, 100, 11);
+        double[] cdf = hs.getCDF(new double[]{99.0, 200.0});
+        assertArrayEquals(new double[]{0.0, 1.0}, cdf, 0.0);
+        List<Double> ps = Arrays.asList(.5);
+        assertArrayEquals(new double[]{105.0}, hs.getQuantiles(ps), 2.0);
+    }
+}
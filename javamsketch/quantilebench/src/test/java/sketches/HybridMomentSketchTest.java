@@ -99,4 +99,41 @@ public class HybridMomentSketchTest {
 //        }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCDF() throws Exception {
+        // a single repeated value skips the solve entirely
+        HybridMomentSketch constant = new HybridMomentSketch(1e-8);
+        constant.setSizeParam(5);
+        constant.initialize();
+        double[] twos = new double[100];
+        Arrays.fill(twos, 2.0);
+        constant.add(twos);
+        assertArrayEquals(new double[]{0.0, 1.0, 1.0}, constant.getCDF(new double[]{1.9, 2.0, 2.1}), 0.0);
+
+        // with non-positive values the log sums are dropped and only the
+        // standard basis is solved
+        double[] data = TestDataSource.getUniform(-5, 5, 1001);
+        HybridMomentSketch mixed = new HybridMomentSketch(1e-8);
+        mixed.setSizeParam(7);
+        mixed.initialize();
+        mixed.add(data);
+        double[] xs = {-6.0, -4.0, 0.0, 2.5, 5.0};
+        assertArrayEquals(new double[]{0.0, .1, .5, .75, 1.0}, mixed.getCDF(xs), .02);
+
+        // heavy tailed positive data leans on the log basis
+        LogNormalDistribution source = new LogNormalDistribution(0, 1);
+        source.reseedRandomGenerator(0);
+        double[] logNormal = source.sample(100000);
+        HybridMomentSketch positive = new HybridMomentSketch(1e-8);
+        positive.setSizeParam(9);
+        positive.initialize();
+        positive.add(logNormal);
+        Arrays.sort(logNormal);
+        double[] logXs = {0.1, 0.5, 1.0, 3.0, 10.0};
+        assertArrayEquals(
+                QuantileUtil.getSortedCDF(logNormal, logNormal.length, logXs),
+                positive.getCDF(logXs),
+                .02
+        );
+    }
+}
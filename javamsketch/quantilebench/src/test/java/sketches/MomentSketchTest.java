@@ -9,8 +9,11 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MomentSketchTest {
     @Test
@@ -61,4 +64,51 @@ public class MomentSketchTest {
 //        List<Double> ps = Arrays.asList(.1, .5, .9);
 //        double[] qs = ms.getQuantiles(ps);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLongAdd() {
+        MomentSketch ms = new MomentSketch(1e-10);
+        ms.setSizeParam(5);
+        ms.initialize();
+        // the sum of squares overflows a long after the second value
+        long x = 3000000000L;
+        ms.add(new long[]{1L, x, x, 2L});
+        double[] powerSums = ms.getPowerSums();
+        assertEquals(4.0, powerSums[0], 0.0);
+        assertEquals(2.0 * x + 3, powerSums[1], 0.0);
+        assertEquals(2.0 * x * x + 5, powerSums[2], 1e-6 * x * x);
+        assertEquals(2.0 * x * x * x + 9, powerSums[3], 1e-6 * x * x * x);
+    }
+
+    @Test
+    public void testCDF() throws Exception {
+        // a single repeated value skips the solve entirely
+        MomentSketch constant = new MomentSketch(1e-10);
+        constant.setSizeParam(7);
+        constant.initialize();
+        double[] threes = new double[500];
+        Arrays.fill(threes, 3.0);
+        constant.add(threes);
+        assertArrayEquals(new double[]{0.0, 1.0, 1.0}, constant.getCDF(new double[]{2.9, 3.0, 3.1}), 0.0);
+
+        // skewed data, where the solved density is least accurate in the tail
+        Random r = new Random(0);
+        double[] data = new double[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = -Math.log(1.0 - r.nextDouble());
+        }
+        MomentSketch ms = new MomentSketch(1e-10);
+        ms.setSizeParam(9);
+        ms.initialize();
+        ms.add(data);
+
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        double[] xs = {-1.0, sorted[0], 0.1, 0.5, 1.0, 2.0, 4.0, sorted[sorted.length - 1], 100.0};
+        double[] cdf = ms.getCDF(xs);
+        assertArrayEquals(QuantileUtil.getSortedCDF(sorted, sorted.length, xs), cdf, .02);
+        for (int i = 1; i < cdf.length; i++) {
+            assertTrue(cdf[i] >= cdf[i - 1]);
+        }
+    }
+}
@@ -15,4 +15,14 @@ public class QuantileUtilTest {
         assertEquals(100.0, qs[0], 0.0);
         assertEquals(500.0, qs[1], 0.0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSortedCDF() {
+        double[] data = TestDataSource.getUniform(1001);
+        double[] cdf = QuantileUtil.getSortedCDF(data, data.length, new double[]{-1.0, 0.0, 499.5, 1000.0});
+        assertEquals(0.0, cdf[0], 0.0);
+        assertEquals(1.0/1001, cdf[1], 0.0);
+        assertEquals(500.0/1001, cdf[2], 0.0);
+        assertEquals(1.0, cdf[3], 0.0);
+    }
+}
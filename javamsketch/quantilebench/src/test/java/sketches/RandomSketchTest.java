@@ -143,4 +143,31 @@ public class RandomSketchTest {
             assertEquals(new ArrayList<>(Arrays.asList(1., 3., 5., 7., 9.)), target);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCDF() throws Exception {
+        // small enough to stay in the first buffer, so the CDF is exact
+        RandomSketch small = new RandomSketch();
+        small.setSizeParam(50);
+        small.initialize();
+        small.add(new double[]{3.0, 1.0, 2.0, 2.0});
+        assertArrayEquals(
+                new double[]{0.0, .25, .75, 1.0},
+                small.getCDF(new double[]{0.5, 1.0, 2.0, 3.0}),
+                0.0
+        );
+
+        // ties across weighted entries once buffers have been compacted
+        int n = 20000;
+        double[] data = new double[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = i % 4;
+        }
+        RandomSketch sketch = new RandomSketch();
+        sketch.setSizeParam(50);
+        sketch.initialize();
+        sketch.add(data);
+        double[] cdf = sketch.getCDF(new double[]{-1.0, 0.0, 1.5, 3.0, 4.0});
+        assertArrayEquals(new double[]{0.0, .25, .5, 1.0, 1.0}, cdf, .05);
+    }
+}
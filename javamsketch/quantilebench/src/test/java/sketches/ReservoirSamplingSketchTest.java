@@ -43,4 +43,91 @@ public class ReservoirSamplingSketchTest {
         assertArrayEquals(expectedQs, qs2, 800.0);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testWeighted() throws Exception {
+        // value i occurs i+1 times
+        int n = 101;
+        double[] values = new double[n];
+        double[] weights = new double[n];
+        double[] expanded = new double[n*(n+1)/2];
+        int idx = 0;
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+            weights[i] = i + 1;
+            for (int j = 0; j <= i; j++) {
+                expanded[idx++] = i;
+            }
+        }
+
+        ReservoirSamplingSketch sketch = new ReservoirSamplingSketch();
+        sketch.setSizeParam(1000);
+        sketch.initialize();
+        sketch.add(values, weights);
+
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        double[] expectedQs = QuantileUtil.getTrueQuantiles(ps, expanded);
+        assertArrayEquals(expectedQs, sketch.getQuantiles(ps), 8.0);
+    }
+
+    @Test
+    public void testWeightedContinues() throws Exception {
+        ReservoirSamplingSketch sketch = new ReservoirSamplingSketch();
+        sketch.setSizeParam(1000);
+        sketch.initialize();
+        double[] first = new double[500];
+        double[] values = new double[250];
+        double[] weights = new double[250];
+        for (int i = 0; i < 500; i++) {
+            first[i] = i;
+        }
+        for (int i = 0; i < 250; i++) {
+            values[i] = 500 + i;
+            weights[i] = 2;
+        }
+        sketch.add(first);
+        sketch.add(values, weights);
+        // everything still fits, so nothing from the first add is dropped
+        double[] cdf = sketch.getCDF(new double[]{499.0, 749.0});
+        assertArrayEquals(new double[]{0.5, 1.0}, cdf, 0.0);
+    }
+
+    @Test
+    public void testHeavyWeights() throws Exception {
+        // far more arrivals than could be offered one at a time
+        ReservoirSamplingSketch sketch = new ReservoirSamplingSketch();
+        sketch.setSizeParam(2000);
+        sketch.initialize();
+        sketch.add(new double[]{0.0, 1.0}, new double[]{1e12, 2e12});
+        sketch.add(new double[]{2.0}, new double[]{1e12});
+
+        double[] cdf = sketch.getCDF(new double[]{0.0, 1.0, 2.0});
+        assertArrayEquals(new double[]{0.25, 0.75, 1.0}, cdf, 0.05);
+    }
+
+    @Test
+    public void testAddRange() throws Exception {
+        double[] data = TestDataSource.getUniform(10001);
+        ReservoirSamplingSketch sketch = new ReservoirSamplingSketch();
+        sketch.setSizeParam(100);
+        sketch.initialize();
+        sketch.add(data, 2000, 50);
+
+        double[] cdf = sketch.getCDF(new double[]{1999.0, 2049.0});
+        assertArrayEquals(new double[]{0.0, 1.0}, cdf, 0.0);
+    }
+
+    @Test
+    public void testChunkedAdd() throws Exception {
+        double[] data = TestDataSource.getUniform(10001);
+        ReservoirSamplingSketch sketch = new ReservoirSamplingSketch();
+        sketch.setSizeParam(1000);
+        sketch.initialize();
+        for (int start = 0; start < data.length; start += 300) {
+            sketch.add(data, start, Math.min(300, data.length - start));
+        }
+
+        List<Double> ps = Arrays.asList(.1, .5, .9);
+        double[] expectedQs = QuantileUtil.getTrueQuantiles(ps, data);
+        assertArrayEquals(expectedQs, sketch.getQuantiles(ps), 800.0);
+    }
+}
@@ -42,4 +42,18 @@ public class SamplingSketchTest {
         assertArrayEquals(expectedQs, qs2, 1000.0);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCDF() throws Exception {
+        SamplingSketch s = new SamplingSketch();
+        s.setSizeParam(1000);
+        s.initialize();
+
+        double[] data = TestDataSource.getUniform(10001);
+        s.add(data);
+
+        double[] xs = {-1.0, 1000.0, 5000.0, 9000.0, 10001.0};
+        double[] cdf = s.getCDF(xs);
+        double[] expected = {0.0, .1, .5, .9, 1.0};
+        assertArrayEquals(expected, cdf, .05);
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 public class SparkGKSketchTest {
     @Test
@@ -45,4 +46,40 @@ public class SparkGKSketchTest {
         assertArrayEquals(expectedQs, qs2, n/size);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCDF() throws Exception {
+        // heavy ties, where the rank of a value is the sum of g over every
+        // tuple at or below it rather than an interpolation between tuples
+        int n = 20000;
+        double[] data = new double[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = i % 10;
+        }
+        SparkGKSketch sketch = new SparkGKSketch();
+        sketch.setSizeParam(100);
+        sketch.initialize();
+        sketch.add(data);
+
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+        double[] xs = {-1.0, 0.0, 0.5, 4.0, 8.99, 9.0, 10.0};
+        double[] cdf = sketch.getCDF(xs);
+        assertArrayEquals(QuantileUtil.getSortedCDF(sorted, n, xs), cdf, 1.0 / 100);
+        assertEquals(0.0, cdf[0], 0.0);
+        assertEquals(1.0, cdf[cdf.length - 1], 0.0);
+
+        // merged sketches keep the same rank guarantee
+        double[] uniform = TestDataSource.getUniform(n);
+        ArrayList<double[]> cellData = new SeqDataGrouper(60).group(uniform);
+        QuantileSketch merged = QuantileUtil.trainAndMerge(
+                () -> {
+                    SparkGKSketch newSketch = new SparkGKSketch();
+                    newSketch.setSizeParam(100);
+                    return newSketch;
+                },
+                cellData
+        );
+        double[] uniformXs = {-1.0, 2000.0, 10000.0, 19999.0};
+        assertArrayEquals(new double[]{0.0, .1, .5, 1.0}, merged.getCDF(uniformXs), 2.0 / 100);
+    }
+}
@@ -39,4 +39,19 @@ public class YahooSketchTest {
         double[] qs2 = mergedSketch.getQuantiles(ps);
         assertArrayEquals(expectedQs, qs2, 10.0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCDF() throws Exception {
+        YahooSketch s = new YahooSketch();
+        s.setSizeParam(1024.0);
+        s.initialize();
+
+        double[] data = TestDataSource.getUniform(10001);
+        s.add(data);
+
+        double[] xs = {-1.0, 1000.0, 5000.0, 9000.0, 10001.0};
+        double[] cdf = s.getCDF(xs);
+        double[] expected = {0.0, .1, .5, .9, 1.0};
+        assertArrayEquals(expected, cdf, .01);
+    }
+}